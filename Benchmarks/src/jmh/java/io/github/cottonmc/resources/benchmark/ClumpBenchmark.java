@@ -0,0 +1,44 @@
+package io.github.cottonmc.resources.benchmark;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.cottonmc.resources.oregen.Clump;
+
+@State(Scope.Thread)
+public class ClumpBenchmark {
+	/** 3 and 7 are typical vein radii, 12 is past the precomputed spheres and gets built per cluster */
+	@Param({ "3", "7", "12" })
+	public int radius;
+	
+	private Clump clump;
+	private Clump.Sampler sampler;
+	private Random rand;
+	
+	@Setup
+	public void setup() {
+		clump = Clump.of(radius);
+		sampler = new Clump.Sampler();
+		rand = new Random(0L);
+	}
+	
+	@Benchmark
+	public Clump of() {
+		return Clump.of(radius);
+	}
+	
+	/** Draws every entry out of the clump, which is the worst case for a single cluster */
+	@Benchmark
+	public void removeGaussian(Blackhole blackhole) {
+		sampler.reset(clump);
+		while(!sampler.isEmpty()) {
+			blackhole.consume(sampler.removeGaussian(rand));
+		}
+	}
+}
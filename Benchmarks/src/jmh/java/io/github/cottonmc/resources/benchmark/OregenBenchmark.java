@@ -0,0 +1,69 @@
+package io.github.cottonmc.resources.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.github.cottonmc.resources.oregen.CottonOreFeature;
+import io.github.cottonmc.resources.oregen.GeneratorIndex;
+import io.github.cottonmc.resources.oregen.OreGenerationSettings;
+import io.github.cottonmc.resources.oregen.OrePlacer;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ProtoChunk;
+
+/**
+ * One full CottonOreFeature pass over a freshly filled stand-in chunk. The ores are vanilla blocks so that nothing
+ * from the mod has to be registered, but the generators are shaped like the ones in our datapacks.
+ */
+@State(Scope.Thread)
+public class OregenBenchmark {
+	/** How many copies of the generator set below to run per chunk */
+	@Param({ "1", "6" })
+	public int copies;
+	
+	private GeneratorIndex.Entry[] generators;
+	private ProtoChunk chunk;
+	private OrePlacer placer;
+	/** Used as both the stand-in chunk's seed and the world seed, so every invocation sees different ores */
+	private long chunkSeed = 0L;
+	private long worldSeed;
+	
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		StandInWorld.bootstrap();
+		
+		Block[] ores = { Blocks.COAL_ORE, Blocks.IRON_ORE, Blocks.GOLD_ORE, Blocks.LAPIS_ORE, Blocks.REDSTONE_ORE, Blocks.DIAMOND_ORE };
+		generators = new GeneratorIndex.Entry[ores.length * copies];
+		for(int i=0; i<generators.length; i++) {
+			Block ore = ores[i % ores.length];
+			OreGenerationSettings settings = new OreGenerationSettings()
+					.withMinHeight(6)
+					.withMaxHeight(64)
+					.withClusterCount(4 + (i % 12))
+					.withClusterSize(3 + (i % 8));
+			settings.ores.add(ore.getDefaultState());
+			generators[i] = new GeneratorIndex.Entry("benchmark_"+i, settings);
+		}
+		
+		//Make sure the feature is registered and classloaded before we start measuring
+		CottonOreFeature.COTTON_ORE.getClass();
+	}
+	
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		worldSeed = chunkSeed;
+		chunk = StandInWorld.createChunk(new ChunkPos(0, 0), chunkSeed++);
+		placer = new OrePlacer(null, chunk);
+	}
+	
+	@Benchmark
+	public ProtoChunk generate() {
+		CottonOreFeature.COTTON_ORE.generate(placer, generators, worldSeed);
+		return chunk;
+	}
+}
@@ -0,0 +1,531 @@
+package io.github.cottonmc.resources.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import blue.endless.jankson.Jankson;
+import blue.endless.jankson.JsonArray;
+import blue.endless.jankson.JsonElement;
+import blue.endless.jankson.JsonObject;
+import blue.endless.jankson.JsonPrimitive;
+import blue.endless.jankson.impl.SyntaxError;
+import io.github.cottonmc.jankson.JanksonFactory;
+import io.github.cottonmc.resources.command.OregenStatsCommand;
+import io.github.cottonmc.resources.config.CottonResourcesConfig;
+import io.github.cottonmc.resources.oregen.CottonOreFeature;
+import io.github.cottonmc.resources.oregen.GeneratorIndex;
+import io.github.cottonmc.resources.oregen.OreRandom;
+import io.github.cottonmc.resources.oregen.OreVoteConfig;
+import io.github.cottonmc.resources.oregen.OregenResourceListener;
+import io.github.cottonmc.resources.oregen.OregenSnapshot;
+import io.github.cottonmc.resources.oregen.OregenStats;
+import io.github.cottonmc.resources.oregen.OrePlacer;
+import io.github.cottonmc.resources.oregen.VanillaOres;
+import io.github.cottonmc.resources.tag.WorldTagReloadListener;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.resource.DefaultResourcePack;
+import net.minecraft.resource.DirectoryResourcePack;
+import net.minecraft.resource.ReloadableResourceManagerImpl;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceReloadListener;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.tag.BlockTags;
+import net.minecraft.tag.RegistryTagContainer;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.profiler.DummyProfiler;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ProtoChunk;
+import net.minecraft.world.dimension.DimensionType;
+import net.minecraft.world.gen.GenerationStep;
+import net.minecraft.world.gen.decorator.RangeDecoratorConfig;
+import net.minecraft.world.gen.feature.ConfiguredFeature;
+import net.minecraft.world.gen.feature.DecoratedFeatureConfig;
+import net.minecraft.world.gen.feature.EmeraldOreFeatureConfig;
+import net.minecraft.world.gen.feature.FeatureConfig;
+import net.minecraft.world.gen.feature.OreFeatureConfig;
+
+/**
+ * Runs the real cotton:ore feature over synthetic chunks, using the oregen files and config that would be loaded in
+ * game, and reports how much ore each resource places, where, how much gets rejected, and how fast it all runs.
+ *
+ * <p>Oregen files and block, biome and dimension tags are read from datapack-style directories. Blocks those files name
+ * that nothing has registered (modded ores, mostly) are registered as plain stand-in blocks first, so the mod itself
+ * doesn't have to be running. Chunks are filled with a host rock mix that depends on the dimension, and generated in
+ * parallel on every core.
+ */
+public class OregenSimulator {
+	public static final String USAGE = String.join("\n",
+			"Usage: OregenSimulator [options]",
+			"  --data <dir>          a datapack-style directory with data/<namespace>/oregen and tags; repeatable,",
+			"                        later ones override earlier ones (default: ../src/main/resources)",
+			"  --config <file>       a CottonResources.json5 to apply on top",
+			"  --dimension <id>      default minecraft:overworld",
+			"  --biome <id>          default plains, nether or the_end, to match the dimension",
+			"  --rock <id=weight,..> host rock mix for the chunks, in 4x4x4 pockets (default depends on the dimension)",
+			"  --chunks <n>          default 1000",
+			"  --threads <n>         default one per core",
+			"  --seed <n>            world seed, default 0",
+			"  --json <file>         also write the report as json");
+
+	private static final ResourceReloadListener.Synchronizer NO_WAIT = new ResourceReloadListener.Synchronizer() {
+		@Override
+		public <T> CompletableFuture<T> whenPrepared(T preparedObject) {
+			return CompletableFuture.completedFuture(preparedObject);
+		}
+	};
+
+	public static void main(String[] args) throws Exception {
+		Options options;
+		try {
+			options = Options.parse(args);
+		} catch (IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println(USAGE);
+			System.exit(1);
+			return;
+		}
+
+		StandInWorld.bootstrap();
+		CottonOreFeature.COTTON_ORE.getClass();
+
+		DimensionType dimension = Registry.DIMENSION.get(options.dimension);
+		if (dimension==null) fail("Unknown dimension "+options.dimension);
+		Identifier biomeId = (options.biome!=null) ? options.biome : defaultBiome(options.dimension);
+		Biome biome = Registry.BIOME.get(biomeId);
+		if (biome==null) fail("Unknown biome "+biomeId);
+
+		ReloadableResourceManagerImpl resources = new ReloadableResourceManagerImpl(ResourceType.SERVER_DATA, Thread.currentThread());
+		resources.addPack(new DefaultResourcePack("minecraft"));
+		for(File dir : options.data) {
+			if (!dir.isDirectory()) fail("Not a directory: "+dir);
+			resources.addPack(new DirectoryResourcePack(dir));
+		}
+
+		Jankson jankson = JanksonFactory.builder().build();
+		int standIns = registerStandIns(resources, jankson);
+		if (options.rockIds!=null) for(Identifier id : options.rockIds) {
+			if (StandInWorld.registerStandIn(id)) standIns++; //So --rock can name a modded host block too
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(options.threads);
+		try {
+			//Only block tags; item tags would just complain about every modded item that isn't here
+			RegistryTagContainer<Block> blockTags = new RegistryTagContainer<>(Registry.BLOCK, "tags/blocks", "block");
+			blockTags.applyReload(blockTags.prepareReload(resources, pool).join());
+			BlockTags.setContainer(blockTags);
+			new WorldTagReloadListener().reload(NO_WAIT, resources, DummyProfiler.INSTANCE, DummyProfiler.INSTANCE, pool, Runnable::run).join();
+
+			CottonResourcesConfig config = (options.config!=null) ? CottonResourcesConfig.load(options.config) : new CottonResourcesConfig();
+			if (config.override_vanilla_generation) recordVanillaOreBiomes();
+			OregenSnapshot snapshot = OregenSnapshot.build(OregenResourceListener.merge(loadOregen(resources, jankson), config));
+			GeneratorIndex.Entry[] generators = snapshot.generators.get(dimension, biome);
+
+			BlockState[] rock;
+			int[] weights;
+			if (options.rockIds!=null) {
+				rock = new BlockState[options.rockIds.size()];
+				for(int i=0; i<rock.length; i++) rock[i] = Registry.BLOCK.get(options.rockIds.get(i)).getDefaultState();
+				weights = options.rockWeights;
+			} else {
+				rock = defaultRock(options.dimension);
+				weights = defaultRockWeights(options.dimension);
+			}
+
+			System.out.println("Registered "+standIns+" stand-in blocks for blocks that weren't in the registry");
+			System.out.println("Simulating "+options.chunks+" chunks of "+options.dimension+" / "+biomeId+" on "+options.threads+" threads, seed "+options.seed);
+			StringBuilder rockNames = new StringBuilder();
+			for(int i=0; i<rock.length; i++) {
+				rockNames.append(Registry.BLOCK.getId(rock[i].getBlock())).append(" x").append(weights[i]).append((i<rock.length-1) ? ", " : "");
+			}
+			System.out.println("Host rock: "+rockNames);
+			StringBuilder names = new StringBuilder();
+			for(GeneratorIndex.Entry generator : generators) {
+				names.append(generator.resource).append(' ');
+			}
+			System.out.println(generators.length+" generators apply: "+names.toString().trim());
+			if (generators.length==0) return;
+
+			Report report = run(pool, generators, options, rock, weights);
+			report.print();
+			if (options.json!=null) {
+				try (FileOutputStream out = new FileOutputStream(options.json, false)) {
+					out.write(report.toJson(options, biomeId).toJson(true, true).getBytes(StandardCharsets.UTF_8));
+				}
+				System.out.println("Wrote "+options.json);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void fail(String message) {
+		System.err.println(message);
+		System.exit(1);
+	}
+
+	/**
+	 * Registers a stand-in block for every block id that the oregen files' ore_block and replacement specs, or the block
+	 * tags, mention but nothing has registered. This has to happen before anything is parsed, since ore_block specs are
+	 * resolved as they're read.
+	 */
+	private static int registerStandIns(ResourceManager resources, Jankson jankson) throws IOException {
+		Set<String> ids = new HashSet<>();
+		for(Identifier id : resources.findResources("oregen", (it)->it.endsWith(".json") || it.endsWith(".json5"))) {
+			JsonObject obj = parse(resources.getResource(id).getInputStream(), jankson, id);
+			if (obj==null) continue;
+
+			JsonObject generators = obj.getObject("generators");
+			if (generators!=null) for(JsonElement generator : generators.values()) {
+				if (generator instanceof JsonObject) collectIds(((JsonObject) generator).get("ore_block"), ids);
+			}
+			JsonObject replacements = obj.getObject("replacements");
+			if (replacements!=null) for(JsonElement resource : replacements.values()) {
+				if (!(resource instanceof JsonObject)) continue;
+				for(Map.Entry<String, JsonElement> entry : ((JsonObject) resource).entrySet()) {
+					ids.add(entry.getKey());
+					collectIds(entry.getValue(), ids);
+				}
+			}
+		}
+
+		for(Identifier id : resources.findResources("tags/blocks", (it)->it.endsWith(".json"))) {
+			for(Resource resource : resources.getAllResources(id)) {
+				JsonObject obj = parse(resource.getInputStream(), jankson, id);
+				if (obj!=null) collectIds(obj.get("values"), ids);
+			}
+		}
+
+		int registered = 0;
+		for(String id : ids) {
+			if (id.startsWith("#") || !id.contains(":")) continue;
+			try {
+				if (StandInWorld.registerStandIn(new Identifier(id))) registered++;
+			} catch (RuntimeException ex) {
+				//Not an identifier after all
+			}
+		}
+		return registered;
+	}
+
+	/**
+	 * Records which biomes get which vanilla ores, the way MixinVanillaOregen does in game. Without the mixin, vanilla's
+	 * own ore features are never cancelled, so they're still in each biome's feature list and can be read from there:
+	 * coal means the default ores, gold above y=32 is the badlands extra gold, and emerald ore is emerald ore.
+	 */
+	private static void recordVanillaOreBiomes() {
+		for(Biome biome : Registry.BIOME) {
+			for(ConfiguredFeature<?> feature : biome.getFeaturesForStep(GenerationStep.Feature.UNDERGROUND_ORES)) {
+				if (!(feature.config instanceof DecoratedFeatureConfig)) continue;
+				DecoratedFeatureConfig decorated = (DecoratedFeatureConfig) feature.config;
+				FeatureConfig inner = decorated.feature.config;
+				if (inner instanceof OreFeatureConfig) {
+					Block ore = ((OreFeatureConfig) inner).state.getBlock();
+					if (ore==Blocks.COAL_ORE) {
+						VanillaOres.addDefaultOres(biome);
+					} else if (ore==Blocks.GOLD_ORE && decorated.decorator.config instanceof RangeDecoratorConfig && ((RangeDecoratorConfig) decorated.decorator.config).bottomOffset>0) {
+						VanillaOres.addExtraGoldOre(biome);
+					}
+				} else if (inner instanceof EmeraldOreFeatureConfig) {
+					VanillaOres.addEmeraldOre(biome);
+				}
+			}
+		}
+	}
+
+	/** Collects every string in a json tree, which for block specs means every block id and tag it names */
+	private static void collectIds(JsonElement elem, Set<String> into) {
+		if (elem instanceof JsonPrimitive) {
+			Object value = ((JsonPrimitive) elem).getValue();
+			if (value instanceof String) into.add((String) value);
+		} else if (elem instanceof JsonArray) {
+			for(JsonElement e : (JsonArray) elem) collectIds(e, into);
+		} else if (elem instanceof JsonObject) {
+			for(JsonElement e : ((JsonObject) elem).values()) collectIds(e, into);
+		}
+	}
+
+	/** Reads every oregen file in resource order, the same way OregenResourceListener does */
+	private static List<OreVoteConfig> loadOregen(ResourceManager resources, Jankson jankson) throws IOException {
+		List<OreVoteConfig> result = new ArrayList<>();
+		for(Identifier id : resources.findResources("oregen", (it)->it.endsWith(".json") || it.endsWith(".json5"))) {
+			JsonObject obj = parse(resources.getResource(id).getInputStream(), jankson, id);
+			if (obj!=null) result.add(OreVoteConfig.deserialize(obj));
+		}
+		return result;
+	}
+
+	private static JsonObject parse(InputStream in, Jankson jankson, Identifier id) throws IOException {
+		try (InputStream stream = in) {
+			return jankson.load(stream);
+		} catch (SyntaxError ex) {
+			System.err.println("Couldn't parse "+id+": "+ex.getCompleteMessage());
+			return null;
+		}
+	}
+
+	private static Report run(ExecutorService pool, GeneratorIndex.Entry[] generators, Options options, BlockState[] rock, int[] weights) throws Exception {
+		OregenStats.reset();
+		AtomicInteger next = new AtomicInteger();
+		int width = (int) Math.ceil(Math.sqrt(options.chunks));
+
+		long start = System.nanoTime();
+		List<Future<Counts>> workers = new ArrayList<>();
+		for(int t=0; t<options.threads; t++) {
+			workers.add(pool.submit(()->{
+				Counts counts = new Counts();
+				for(int i=next.getAndIncrement(); i<options.chunks; i=next.getAndIncrement()) {
+					ChunkPos pos = new ChunkPos(i % width, i / width);
+					ProtoChunk chunk = StandInWorld.createChunk(pos, OreRandom.mix64(options.seed + i), rock, weights);
+
+					long chunkStart = System.nanoTime();
+					CottonOreFeature.COTTON_ORE.generate(new CountingPlacer(chunk, counts), generators, options.seed);
+					counts.nanos += System.nanoTime()-chunkStart;
+				}
+				return counts;
+			}));
+		}
+
+		Counts total = new Counts();
+		for(Future<Counts> worker : workers) total.add(worker.get());
+		long wallNanos = System.nanoTime()-start;
+
+		return new Report(options.chunks, options.threads, wallNanos, total, OregenStats.snapshot());
+	}
+
+	/** Counts every ore written into the chunk, or spilled out of it for a neighbor, by block and Y */
+	private static class CountingPlacer extends OrePlacer {
+		private final Counts counts;
+
+		public CountingPlacer(Chunk chunk, Counts counts) {
+			super(null, chunk);
+			this.counts = counts;
+		}
+
+		@Override
+		public void setBlockState(int x, int y, int z, BlockState state) {
+			counts.add(state.getBlock(), y, false);
+			super.setBlockState(x, y, z, state);
+		}
+
+		@Override
+		public boolean spill(int x, int y, int z, Block host, BlockState state) {
+			//There's no neighbor to hand it to, but in a real world one would get it
+			counts.add(state.getBlock(), y, true);
+			return true;
+		}
+	}
+
+	/** One thread's tallies, merged at the end */
+	private static class Counts {
+		private final IdentityHashMap<Block, long[]> byY = new IdentityHashMap<>();
+		private final IdentityHashMap<Block, long[]> spilled = new IdentityHashMap<>();
+		private long nanos;
+
+		public void add(Block block, int y, boolean spill) {
+			if (y<0 || y>255) return;
+			byY.computeIfAbsent(block, (it)->new long[256])[y]++;
+			if (spill) spilled.computeIfAbsent(block, (it)->new long[1])[0]++;
+		}
+
+		public void add(Counts other) {
+			for(Map.Entry<Block, long[]> entry : other.byY.entrySet()) {
+				long[] into = byY.computeIfAbsent(entry.getKey(), (it)->new long[256]);
+				for(int y=0; y<256; y++) into[y] += entry.getValue()[y];
+			}
+			for(Map.Entry<Block, long[]> entry : other.spilled.entrySet()) {
+				spilled.computeIfAbsent(entry.getKey(), (it)->new long[1])[0] += entry.getValue()[0];
+			}
+			nanos += other.nanos;
+		}
+	}
+
+	private static class Report {
+		private final int chunks;
+		private final int threads;
+		private final long wallNanos;
+		private final Counts counts;
+		private final Map<String, OregenStats.Snapshot> stats;
+		/** Ore blocks by id, so the report comes out sorted */
+		private final TreeMap<String, Block> ores = new TreeMap<>();
+
+		public Report(int chunks, int threads, long wallNanos, Counts counts, Map<String, OregenStats.Snapshot> stats) {
+			this.chunks = chunks;
+			this.threads = threads;
+			this.wallNanos = wallNanos;
+			this.counts = counts;
+			this.stats = stats;
+			for(Block block : counts.byY.keySet()) ores.put(Registry.BLOCK.getId(block).toString(), block);
+		}
+
+		public double chunksPerSecond() {
+			return chunks / (wallNanos / 1_000_000_000.0);
+		}
+
+		public double featureMicrosPerChunk() {
+			return counts.nanos / 1_000.0 / chunks;
+		}
+
+		public void print() {
+			System.out.println();
+			System.out.println(String.format("Throughput: %.1f chunks/s overall (including filling the chunks), %.1f us per chunk in cotton:ore per thread",
+					chunksPerSecond(), featureMicrosPerChunk()));
+			System.out.println(String.format("            so about %.1f chunks/s of cotton:ore alone across %d threads", threads * 1_000_000.0 / featureMicrosPerChunk(), threads));
+
+			System.out.println();
+			System.out.println("resource: ores / clusters per chunk, rejected by host / by replacement rules / already planned / outside world / lost to other ores (of all candidates), us per chunk");
+			for(Map.Entry<String, OregenStats.Snapshot> entry : stats.entrySet()) {
+				OregenStats.Snapshot s = entry.getValue();
+				double candidates = Math.max(1, s.placed + s.rejectedByHost + s.rejectedByReplacement + s.rejectedByClaim + s.outsideWorld + s.lostToConflict);
+				System.out.println(String.format("  %s: %.2f / %.2f, %.1f%% / %.1f%% / %.1f%% / %.1f%% / %.1f%%, %.1f", entry.getKey(),
+						s.placed / (double)chunks, s.clusters / (double)chunks,
+						100 * s.rejectedByHost / candidates, 100 * s.rejectedByReplacement / candidates,
+						100 * s.rejectedByClaim / candidates, 100 * s.outsideWorld / candidates, 100 * s.lostToConflict / candidates,
+						s.nanos / 1_000.0 / chunks));
+			}
+
+			System.out.println();
+			System.out.println("ore block: ores per chunk (spilled into neighbors), then per chunk in each 16-block band of Y");
+			for(Map.Entry<String, Block> entry : ores.entrySet()) {
+				long[] byY = counts.byY.get(entry.getValue());
+				StringBuilder bands = new StringBuilder();
+				for(int band=0; band<16; band++) {
+					long sum = 0;
+					for(int y=band*16; y<band*16+16; y++) sum += byY[y];
+					if (sum>0) bands.append(String.format("  %d-%d: %.2f", band*16, band*16+15, sum / (double)chunks));
+				}
+				System.out.println(String.format("  %s: %.2f (%.2f)%s", entry.getKey(), total(byY) / (double)chunks, spilled(entry.getValue()) / (double)chunks, bands));
+			}
+		}
+
+		public JsonObject toJson(Options options, Identifier biome) {
+			JsonObject result = new JsonObject();
+			result.put("chunks", new JsonPrimitive(chunks));
+			result.put("threads", new JsonPrimitive(threads));
+			result.put("seed", new JsonPrimitive(options.seed));
+			result.put("dimension", new JsonPrimitive(options.dimension.toString()));
+			result.put("biome", new JsonPrimitive(biome.toString()));
+			result.put("chunks_per_second", new JsonPrimitive(chunksPerSecond()));
+			result.put("feature_micros_per_chunk", new JsonPrimitive(featureMicrosPerChunk()));
+			result.put("resources", OregenStatsCommand.toJson(stats));
+
+			JsonObject oresObj = new JsonObject();
+			for(Map.Entry<String, Block> entry : ores.entrySet()) {
+				long[] byY = counts.byY.get(entry.getValue());
+				JsonObject ore = new JsonObject();
+				ore.put("per_chunk", new JsonPrimitive(total(byY) / (double)chunks));
+				ore.put("spilled_per_chunk", new JsonPrimitive(spilled(entry.getValue()) / (double)chunks));
+				JsonObject perY = new JsonObject();
+				for(int y=0; y<256; y++) {
+					if (byY[y]>0) perY.put(Integer.toString(y), new JsonPrimitive(byY[y] / (double)chunks));
+				}
+				ore.put("by_y", perY);
+				oresObj.put(entry.getKey(), ore);
+			}
+			result.put("ores", oresObj);
+			return result;
+		}
+
+		private long spilled(Block block) {
+			long[] spilled = counts.spilled.get(block);
+			return (spilled==null) ? 0 : spilled[0];
+		}
+
+		private static long total(long[] byY) {
+			long sum = 0;
+			for(long l : byY) sum += l;
+			return sum;
+		}
+	}
+
+	private static Identifier defaultBiome(Identifier dimension) {
+		if (dimension.equals(DimensionType.getId(DimensionType.THE_NETHER))) return new Identifier("nether");
+		if (dimension.equals(DimensionType.getId(DimensionType.THE_END))) return new Identifier("the_end");
+		return new Identifier("plains");
+	}
+
+	private static BlockState[] defaultRock(Identifier dimension) {
+		if (dimension.equals(DimensionType.getId(DimensionType.THE_NETHER))) return new BlockState[] { Blocks.NETHERRACK.getDefaultState() };
+		if (dimension.equals(DimensionType.getId(DimensionType.THE_END))) return new BlockState[] { Blocks.END_STONE.getDefaultState() };
+		//Same mix as the benchmarks' stand-in chunks
+		return new BlockState[] { Blocks.STONE.getDefaultState(), Blocks.GRANITE.getDefaultState(), Blocks.DIORITE.getDefaultState(), Blocks.ANDESITE.getDefaultState() };
+	}
+
+	private static int[] defaultRockWeights(Identifier dimension) {
+		if (dimension.equals(DimensionType.getId(DimensionType.THE_NETHER)) || dimension.equals(DimensionType.getId(DimensionType.THE_END))) return new int[] { 1 };
+		return new int[] { 9, 1, 1, 1 };
+	}
+
+	private static class Options {
+		private final List<File> data = new ArrayList<>();
+		private File config = null;
+		private Identifier dimension = new Identifier("overworld");
+		private Identifier biome = null;
+		private List<Identifier> rockIds = null;
+		private int[] rockWeights = null;
+		private int chunks = 1000;
+		private int threads = Runtime.getRuntime().availableProcessors();
+		private long seed = 0L;
+		private File json = null;
+
+		public static Options parse(String[] args) {
+			Options result = new Options();
+			for(int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("--help")) throw new IllegalArgumentException("OregenSimulator runs cotton:ore over synthetic chunks and reports what it placed.");
+				if (i+1>=args.length) throw new IllegalArgumentException("Missing a value for "+arg);
+				String value = args[++i];
+				try {
+					switch(arg) {
+						case "--data": result.data.add(new File(value)); break;
+						case "--config": result.config = new File(value); break;
+						case "--dimension": result.dimension = new Identifier(value); break;
+						case "--biome": result.biome = new Identifier(value); break;
+						case "--rock": result.parseRock(value); break;
+						case "--chunks": result.chunks = Math.max(1, Integer.parseInt(value)); break;
+						case "--threads": result.threads = Math.max(1, Integer.parseInt(value)); break;
+						case "--seed": result.seed = Long.parseLong(value); break;
+						case "--json": result.json = new File(value); break;
+						default: throw new IllegalArgumentException("Unknown option "+arg);
+					}
+				} catch (NumberFormatException ex) {
+					throw new IllegalArgumentException("Not a number: "+value);
+				}
+			}
+			if (result.data.isEmpty()) result.data.add(new File("../src/main/resources"));
+			return result;
+		}
+
+		/** Only the ids are kept here; the blocks are looked up after bootstrap, once stand-ins are registered */
+		private void parseRock(String value) {
+			String[] parts = value.split(",");
+			rockIds = new ArrayList<>();
+			rockWeights = new int[parts.length];
+			for(int i=0; i<parts.length; i++) {
+				String[] idAndWeight = parts[i].split("=");
+				rockIds.add(new Identifier(idAndWeight[0].trim()));
+				rockWeights[i] = (idAndWeight.length>1) ? Math.max(1, Integer.parseInt(idAndWeight[1].trim())) : 1;
+			}
+		}
+	}
+}
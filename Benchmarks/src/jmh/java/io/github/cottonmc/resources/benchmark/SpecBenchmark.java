@@ -0,0 +1,50 @@
+package io.github.cottonmc.resources.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import blue.endless.jankson.Jankson;
+import blue.endless.jankson.JsonElement;
+import blue.endless.jankson.JsonObject;
+import blue.endless.jankson.impl.SyntaxError;
+import io.github.cottonmc.resources.oregen.BiomeSpec;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+
+@State(Scope.Thread)
+public class SpecBenchmark {
+	private static final String SPEC_JSON = "{ \"biomes\": { \"not\": [ \"minecraft:ocean\", \"minecraft:deep_ocean\", \"minecraft:river\", \"minecraft:beach\", \"#oceans\" ] } }";
+	
+	private JsonElement specElement;
+	private BiomeSpec spec;
+	private Biome[] biomes;
+	
+	@Setup
+	public void setup() throws SyntaxError {
+		StandInWorld.bootstrap();
+		
+		JsonObject obj = Jankson.builder().build().load(SPEC_JSON);
+		specElement = obj.get("biomes");
+		spec = BiomeSpec.deserialize(specElement);
+		
+		biomes = new Biome[Registry.BIOME.getIds().size()];
+		int i = 0;
+		for(Biome biome : Registry.BIOME) biomes[i++] = biome;
+	}
+	
+	@Benchmark
+	public BiomeSpec deserialize() {
+		return BiomeSpec.deserialize(specElement);
+	}
+	
+	/** Tests every registered biome once */
+	@Benchmark
+	public void test(Blackhole blackhole) {
+		for(Biome biome : biomes) {
+			blackhole.consume(spec.test(biome));
+		}
+	}
+}
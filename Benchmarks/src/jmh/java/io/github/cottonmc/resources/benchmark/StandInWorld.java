@@ -0,0 +1,109 @@
+package io.github.cottonmc.resources.benchmark;
+
+import java.util.Random;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.Material;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.chunk.ProtoChunk;
+import net.minecraft.world.chunk.UpgradeData;
+
+/**
+ * An in-memory stand-in for a generating world: a bare ProtoChunk filled with natural stone or another host rock mix,
+ * with no server, no ChunkRegion and no neighbors.
+ */
+public class StandInWorld {
+	public static final int SURFACE = 128;
+	
+	private static final BlockState STONE = Blocks.STONE.getDefaultState();
+	private static final BlockState[] INCLUSIONS = {
+			Blocks.GRANITE.getDefaultState(),
+			Blocks.DIORITE.getDefaultState(),
+			Blocks.ANDESITE.getDefaultState()
+	};
+	
+	private static boolean bootstrapped = false;
+	
+	/** Registers vanilla content. Must be called before touching anything that uses a Registry. */
+	public static synchronized void bootstrap() {
+		if (bootstrapped) return;
+		Bootstrap.initialize();
+		bootstrapped = true;
+	}
+	
+	/**
+	 * Registers a plain block under this id if nothing is registered there yet, so configs that name modded blocks can
+	 * be loaded without the mods that add them. Returns true if a stand-in was registered.
+	 */
+	public static synchronized boolean registerStandIn(Identifier id) {
+		if (Registry.BLOCK.containsId(id)) return false;
+		Block block = Registry.register(Registry.BLOCK, id, new Block(Block.Settings.of(Material.STONE)));
+		//Normally done by registry sync once the game is running; chunk palettes need the state ids
+		for(BlockState state : block.getStateFactory().getStates()) {
+			Block.STATE_IDS.add(state);
+		}
+		return true;
+	}
+	
+	/**
+	 * Creates a chunk which is stone up to {@link #SURFACE}, with 4x4x4 pockets of granite, diorite and andesite
+	 * making up roughly a quarter of it, and air above.
+	 */
+	public static ProtoChunk createChunk(ChunkPos chunkPos, long seed) {
+		ProtoChunk chunk = new ProtoChunk(chunkPos, UpgradeData.NO_UPGRADE_DATA);
+		Random rand = new Random(seed);
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+		
+		for(int by=0; by<SURFACE; by+=4) {
+			for(int bz=0; bz<16; bz+=4) {
+				for(int bx=0; bx<16; bx+=4) {
+					BlockState state = (rand.nextInt(4)==0) ? INCLUSIONS[rand.nextInt(INCLUSIONS.length)] : STONE;
+					fillPocket(chunk, pos, chunkPos.getStartX()+bx, by, chunkPos.getStartZ()+bz, state);
+				}
+			}
+		}
+		
+		return chunk;
+	}
+	
+	/**
+	 * Creates a chunk made of 4x4x4 pockets of host rock up to {@link #SURFACE}, each one picked from the rock mix by
+	 * weight, and air above.
+	 */
+	public static ProtoChunk createChunk(ChunkPos chunkPos, long seed, BlockState[] rock, int[] weights) {
+		ProtoChunk chunk = new ProtoChunk(chunkPos, UpgradeData.NO_UPGRADE_DATA);
+		Random rand = new Random(seed);
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+		int total = 0;
+		for(int weight : weights) total += weight;
+		
+		for(int by=0; by<SURFACE; by+=4) {
+			for(int bz=0; bz<16; bz+=4) {
+				for(int bx=0; bx<16; bx+=4) {
+					int pick = rand.nextInt(total);
+					int i = 0;
+					while(pick>=weights[i]) pick -= weights[i++];
+					fillPocket(chunk, pos, chunkPos.getStartX()+bx, by, chunkPos.getStartZ()+bz, rock[i]);
+				}
+			}
+		}
+		
+		return chunk;
+	}
+	
+	private static void fillPocket(ProtoChunk chunk, BlockPos.Mutable pos, int startX, int startY, int startZ, BlockState state) {
+		for(int y=startY; y<startY+4; y++) {
+			for(int z=startZ; z<startZ+4; z++) {
+				for(int x=startX; x<startX+4; x++) {
+					chunk.setBlockState(pos.set(x, y, z), state, false);
+				}
+			}
+		}
+	}
+}
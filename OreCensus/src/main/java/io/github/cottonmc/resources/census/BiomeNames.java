@@ -0,0 +1,53 @@
+package io.github.cottonmc.resources.census;
+
+/**
+ * Region files only record biomes by raw id, so this is a table of the vanilla 1.14 ones. Anything else (modded
+ * biomes, mostly) is reported by number.
+ */
+public class BiomeNames {
+	private static final String[] NAMES = new String[256];
+	
+	static {
+		String[] low = {
+			"ocean", "plains", "desert", "mountains", "forest", "taiga", "swamp", "river", "nether", "the_end",
+			"frozen_ocean", "frozen_river", "snowy_tundra", "snowy_mountains", "mushroom_fields", "mushroom_field_shore",
+			"beach", "desert_hills", "wooded_hills", "taiga_hills", "mountain_edge", "jungle", "jungle_hills", "jungle_edge",
+			"deep_ocean", "stone_shore", "snowy_beach", "birch_forest", "birch_forest_hills", "dark_forest", "snowy_taiga",
+			"snowy_taiga_hills", "giant_tree_taiga", "giant_tree_taiga_hills", "wooded_mountains", "savanna",
+			"savanna_plateau", "badlands", "wooded_badlands_plateau", "badlands_plateau", "small_end_islands",
+			"end_midlands", "end_highlands", "end_barrens", "warm_ocean", "lukewarm_ocean", "cold_ocean", "deep_warm_ocean",
+			"deep_lukewarm_ocean", "deep_cold_ocean", "deep_frozen_ocean"
+		};
+		for(int i=0; i<low.length; i++) NAMES[i] = low[i];
+		
+		NAMES[127] = "the_void";
+		NAMES[129] = "sunflower_plains";
+		NAMES[130] = "desert_lakes";
+		NAMES[131] = "gravelly_mountains";
+		NAMES[132] = "flower_forest";
+		NAMES[133] = "taiga_mountains";
+		NAMES[134] = "swamp_hills";
+		NAMES[140] = "ice_spikes";
+		NAMES[149] = "modified_jungle";
+		NAMES[151] = "modified_jungle_edge";
+		NAMES[155] = "tall_birch_forest";
+		NAMES[156] = "tall_birch_hills";
+		NAMES[157] = "dark_forest_hills";
+		NAMES[158] = "snowy_taiga_mountains";
+		NAMES[160] = "giant_spruce_taiga";
+		NAMES[161] = "giant_spruce_taiga_hills";
+		NAMES[162] = "modified_gravelly_mountains";
+		NAMES[163] = "shattered_savanna";
+		NAMES[164] = "shattered_savanna_plateau";
+		NAMES[165] = "eroded_badlands";
+		NAMES[166] = "modified_wooded_badlands_plateau";
+		NAMES[167] = "modified_badlands_plateau";
+		NAMES[168] = "bamboo_jungle";
+		NAMES[169] = "bamboo_jungle_hills";
+	}
+	
+	public static String get(int id) {
+		if (id>=0 && id<NAMES.length && NAMES[id]!=null) return "minecraft:"+NAMES[id];
+		return "#"+id;
+	}
+}
@@ -0,0 +1,123 @@
+package io.github.cottonmc.resources.census;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import blue.endless.jankson.JsonArray;
+import blue.endless.jankson.JsonObject;
+import blue.endless.jankson.JsonPrimitive;
+
+/**
+ * Ore counts for some part of a world. Each fork/join task fills in its own Census, and they're merged on the way back
+ * up, so nothing here needs to be thread-safe.
+ */
+public class Census {
+	public static final int HEIGHT = 256;
+	
+	public long regions = 0;
+	public long chunks = 0;
+	/** Chunks that were skipped because they hadn't finished generating */
+	public long unfinishedChunks = 0;
+	public long sections = 0;
+	/** Sections whose palette had nothing we're counting in it, so their blocks were never decoded */
+	public long skippedSections = 0;
+	public final Map<String, Histogram> blocks = new TreeMap<>();
+	
+	public Histogram get(String block) {
+		return blocks.computeIfAbsent(block, (it)->new Histogram());
+	}
+	
+	/** Attributes everything counted so far to one dimension. Only makes sense while the census covers a single region. */
+	public void setDimension(String dimension) {
+		for(Histogram histogram : blocks.values()) {
+			histogram.byDimension.clear();
+			if (histogram.total>0) histogram.byDimension.put(dimension, histogram.total);
+		}
+	}
+	
+	public Census merge(Census other) {
+		regions += other.regions;
+		chunks += other.chunks;
+		unfinishedChunks += other.unfinishedChunks;
+		sections += other.sections;
+		skippedSections += other.skippedSections;
+		for(Map.Entry<String, Histogram> entry : other.blocks.entrySet()) {
+			get(entry.getKey()).merge(entry.getValue());
+		}
+		return this;
+	}
+	
+	public JsonObject toJson() {
+		JsonObject result = new JsonObject();
+		result.put("regions", new JsonPrimitive(regions));
+		result.put("chunks", new JsonPrimitive(chunks));
+		result.put("unfinished_chunks", new JsonPrimitive(unfinishedChunks));
+		result.put("sections", new JsonPrimitive(sections));
+		result.put("skipped_sections", new JsonPrimitive(skippedSections));
+		
+		JsonObject blocksObj = new JsonObject();
+		for(Map.Entry<String, Histogram> entry : blocks.entrySet()) {
+			blocksObj.put(entry.getKey(), entry.getValue().toJson());
+		}
+		result.put("blocks", blocksObj);
+		return result;
+	}
+	
+	public static class Histogram {
+		public long total = 0;
+		public final long[] byY = new long[HEIGHT];
+		/** Indexed by raw biome id; grows to fit modded biomes */
+		public long[] byBiome = new long[256];
+		public final Map<String, Long> byDimension = new TreeMap<>();
+		
+		public void add(int y, int biome) {
+			total++;
+			byY[y]++;
+			if (biome<0) return;
+			if (biome>=byBiome.length) byBiome = Arrays.copyOf(byBiome, Math.max(biome+1, byBiome.length*2));
+			byBiome[biome]++;
+		}
+		
+		public void merge(Histogram other) {
+			total += other.total;
+			for(int i=0; i<HEIGHT; i++) byY[i] += other.byY[i];
+			if (other.byBiome.length>byBiome.length) byBiome = Arrays.copyOf(byBiome, other.byBiome.length);
+			for(int i=0; i<other.byBiome.length; i++) byBiome[i] += other.byBiome[i];
+			for(Map.Entry<String, Long> entry : other.byDimension.entrySet()) {
+				byDimension.merge(entry.getKey(), entry.getValue(), Long::sum);
+			}
+		}
+		
+		/** Gets the per-biome counts by biome name, leaving out biomes with nothing in them */
+		public Map<String, Long> getBiomes() {
+			TreeMap<String, Long> result = new TreeMap<>();
+			for(int i=0; i<byBiome.length; i++) {
+				if (byBiome[i]>0) result.put(BiomeNames.get(i), byBiome[i]);
+			}
+			return result;
+		}
+		
+		public JsonObject toJson() {
+			JsonObject result = new JsonObject();
+			result.put("total", new JsonPrimitive(total));
+			
+			JsonObject dimensions = new JsonObject();
+			for(Map.Entry<String, Long> entry : byDimension.entrySet()) {
+				dimensions.put(entry.getKey(), new JsonPrimitive(entry.getValue()));
+			}
+			result.put("dimensions", dimensions);
+			
+			JsonObject biomes = new JsonObject();
+			for(Map.Entry<String, Long> entry : getBiomes().entrySet()) {
+				biomes.put(entry.getKey(), new JsonPrimitive(entry.getValue()));
+			}
+			result.put("biomes", biomes);
+			
+			JsonArray y = new JsonArray();
+			for(int i=0; i<HEIGHT; i++) y.add(new JsonPrimitive(byY[i]));
+			result.put("y", y);
+			return result;
+		}
+	}
+}
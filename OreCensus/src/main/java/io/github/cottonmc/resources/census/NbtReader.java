@@ -0,0 +1,113 @@
+package io.github.cottonmc.resources.census;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads uncompressed NBT one tag at a time. Nothing is built up in memory; callers pull out the tags they care about
+ * and skip everything else, which keeps chunks with big light and heightmap arrays cheap to get through.
+ */
+public class NbtReader {
+	public static final byte END = 0;
+	public static final byte BYTE = 1;
+	public static final byte SHORT = 2;
+	public static final byte INT = 3;
+	public static final byte LONG = 4;
+	public static final byte FLOAT = 5;
+	public static final byte DOUBLE = 6;
+	public static final byte BYTE_ARRAY = 7;
+	public static final byte STRING = 8;
+	public static final byte LIST = 9;
+	public static final byte COMPOUND = 10;
+	public static final byte INT_ARRAY = 11;
+	public static final byte LONG_ARRAY = 12;
+	
+	private final DataInputStream in;
+	
+	public NbtReader(InputStream in) {
+		this.in = new DataInputStream(in);
+	}
+	
+	/** Reads the type of the next tag in a compound. END means the compound is over, and there's no name to read. */
+	public byte readType() throws IOException {
+		return in.readByte();
+	}
+	
+	public String readName() throws IOException {
+		return in.readUTF();
+	}
+	
+	public byte readByte() throws IOException {
+		return in.readByte();
+	}
+	
+	public int readInt() throws IOException {
+		return in.readInt();
+	}
+	
+	public String readString() throws IOException {
+		return in.readUTF();
+	}
+	
+	/** Reads the header of a list: its element type. Follow it with {@link #readLength()}. */
+	public byte readListType() throws IOException {
+		return in.readByte();
+	}
+	
+	public int readLength() throws IOException {
+		return in.readInt();
+	}
+	
+	public int[] readIntArray() throws IOException {
+		int[] result = new int[in.readInt()];
+		for(int i=0; i<result.length; i++) result[i] = in.readInt();
+		return result;
+	}
+	
+	public long[] readLongArray() throws IOException {
+		long[] result = new long[in.readInt()];
+		for(int i=0; i<result.length; i++) result[i] = in.readLong();
+		return result;
+	}
+	
+	/** Skips the payload of a tag of the given type, whose name has already been read */
+	public void skip(byte type) throws IOException {
+		switch(type) {
+			case END: break;
+			case BYTE: skipBytes(1); break;
+			case SHORT: skipBytes(2); break;
+			case INT: case FLOAT: skipBytes(4); break;
+			case LONG: case DOUBLE: skipBytes(8); break;
+			case BYTE_ARRAY: skipBytes(in.readInt()); break;
+			case STRING: skipBytes(in.readUnsignedShort()); break;
+			case INT_ARRAY: skipBytes(in.readInt()*4L); break;
+			case LONG_ARRAY: skipBytes(in.readInt()*8L); break;
+			case LIST: {
+				byte elementType = in.readByte();
+				int length = in.readInt();
+				for(int i=0; i<length; i++) skip(elementType);
+				break;
+			}
+			case COMPOUND: {
+				for(byte t = readType(); t!=END; t = readType()) {
+					skipBytes(in.readUnsignedShort()); //name
+					skip(t);
+				}
+				break;
+			}
+			default: throw new IOException("Unknown NBT tag type "+type);
+		}
+	}
+	
+	private void skipBytes(long count) throws IOException {
+		while (count>0) {
+			long skipped = in.skip(count);
+			if (skipped<=0) {
+				in.readByte(); //Either make progress or throw EOFException
+				skipped = 1;
+			}
+			count -= skipped;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package io.github.cottonmc.resources.census;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+public class OreCensus {
+	public static final String DEFAULT_MATCH = "c:*_ore";
+	
+	public static void main(String... args) {
+		File world = null;
+		String match = DEFAULT_MATCH;
+		File json = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		
+		for(int i=0; i<args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("--match") && i+1<args.length) {
+				match = args[++i];
+			} else if (arg.equals("--json") && i+1<args.length) {
+				json = new File(args[++i]);
+			} else if (arg.equals("--threads") && i+1<args.length) {
+				threads = Math.max(1, Integer.parseInt(args[++i]));
+			} else if (!arg.startsWith("--") && world==null) {
+				world = new File(arg);
+			} else {
+				usage();
+				return;
+			}
+		}
+		if (world==null || !world.isDirectory()) {
+			usage();
+			return;
+		}
+		
+		List<RegionTask.Region> regions = findRegions(world);
+		if (regions.isEmpty()) {
+			System.out.println("No region files found in "+world+".");
+			return;
+		}
+		System.out.println("Counting '"+match+"' in "+regions.size()+" region files on "+threads+" threads...");
+		
+		AtomicInteger finished = new AtomicInteger();
+		int total = regions.size();
+		long start = System.nanoTime();
+		Census census = new ForkJoinPool(threads).invoke(new RegionTask(regions, toPattern(match), (region)->{
+			int done = finished.incrementAndGet();
+			if (done*10/total != (done-1)*10/total) System.out.println("	"+(done*100/total)+"% ("+done+"/"+total+" regions)");
+		}));
+		double seconds = (System.nanoTime()-start) / 1_000_000_000.0;
+		
+		print(census, seconds);
+		
+		if (json!=null) {
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(json), StandardCharsets.UTF_8)) {
+				writer.write(census.toJson().toJson(false, true));
+				System.out.println("Wrote "+json+".");
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+	
+	public static void usage() {
+		System.out.println("Usage: OreCensus <world folder> [--match <pattern>] [--json <file>] [--threads <n>]");
+		System.out.println("	Counts every block matching the pattern (default '"+DEFAULT_MATCH+"', * matches anything) in the world's region files.");
+	}
+	
+	/** Finds the region files of each dimension in a world folder */
+	public static List<RegionTask.Region> findRegions(File world) {
+		List<RegionTask.Region> result = new ArrayList<>();
+		addRegions(new File(world, "region"), "minecraft:overworld", result);
+		File[] children = world.listFiles();
+		if (children!=null) {
+			for(File child : children) {
+				if (!child.isDirectory() || !child.getName().startsWith("DIM")) continue;
+				String dimension;
+				switch(child.getName()) {
+					case "DIM-1": dimension = "minecraft:the_nether"; break;
+					case "DIM1": dimension = "minecraft:the_end"; break;
+					default: dimension = child.getName();
+				}
+				addRegions(new File(child, "region"), dimension, result);
+			}
+		}
+		return result;
+	}
+	
+	private static void addRegions(File folder, String dimension, List<RegionTask.Region> result) {
+		File[] files = folder.listFiles();
+		if (files==null) return;
+		for(File file : files) {
+			if (file.getName().endsWith(".mca") && file.length()>0) result.add(new RegionTask.Region(file, dimension));
+		}
+	}
+	
+	/** Turns a pattern like "c:*_ore" into a regex */
+	public static Pattern toPattern(String match) {
+		StringBuilder result = new StringBuilder();
+		for(String part : match.split("\\*", -1)) {
+			if (result.length()>0) result.append(".*");
+			result.append(Pattern.quote(part));
+		}
+		return Pattern.compile(result.toString());
+	}
+	
+	public static void print(Census census, double seconds) {
+		System.out.println(String.format("Scanned %d chunks from %d regions in %.1fs (%.0f chunks/s). %d unfinished chunks were left out.",
+				census.chunks, census.regions, seconds, census.chunks/Math.max(seconds, 0.001), census.unfinishedChunks));
+		System.out.println(String.format("%d sections, %d (%.1f%%) skipped without decoding.",
+				census.sections, census.skippedSections, (census.sections==0) ? 0 : census.skippedSections*100.0/census.sections));
+		
+		for(Map.Entry<String, Census.Histogram> entry : census.blocks.entrySet()) {
+			Census.Histogram histogram = entry.getValue();
+			if (histogram.total==0) continue;
+			System.out.println();
+			System.out.println(entry.getKey()+": "+histogram.total+String.format(" (%.2f per chunk)", histogram.total/(double)Math.max(census.chunks, 1)));
+			
+			System.out.println("	Dimensions:");
+			for(Map.Entry<String, Long> dimension : histogram.byDimension.entrySet()) {
+				System.out.println("		"+dimension.getKey()+": "+dimension.getValue());
+			}
+			
+			System.out.println("	Biomes:");
+			for(Map.Entry<String, Long> biome : histogram.getBiomes().entrySet()) {
+				System.out.println("		"+biome.getKey()+": "+biome.getValue());
+			}
+			
+			System.out.println("	Y:");
+			for(int y=0; y<Census.HEIGHT; y+=8) {
+				long count = 0;
+				for(int i=y; i<y+8; i++) count += histogram.byY[i];
+				if (count>0) System.out.println("		"+y+"-"+(y+7)+": "+count);
+			}
+		}
+	}
+}
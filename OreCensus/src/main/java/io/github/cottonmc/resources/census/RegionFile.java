@@ -0,0 +1,91 @@
+package io.github.cottonmc.resources.census;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One memory-mapped .mca file. The file starts with a table of where each of its 32x32 chunks are, in 4KiB sectors,
+ * and each chunk is a length, a compression type, and then compressed NBT.
+ */
+public class RegionFile {
+	public static final int SECTOR_SIZE = 4096;
+	public static final int CHUNKS = 32*32;
+	public static final byte GZIP = 1;
+	public static final byte ZLIB = 2;
+	
+	private final File file;
+	private final MappedByteBuffer data;
+	
+	public RegionFile(File file) throws IOException {
+		this.file = file;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			//The mapping stays valid after the channel is closed
+			this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * Opens the decompressed NBT of the chunk at the given index (x + z*32) in this region. Returns null if the chunk
+	 * isn't there, or its entry doesn't make sense.
+	 */
+	public InputStream openChunk(int index) throws IOException {
+		if (data.capacity()<SECTOR_SIZE) return null;
+		int location = data.getInt(index*4);
+		long offset = (long)(location >>> 8) * SECTOR_SIZE;
+		if (offset==0 || offset+5>data.capacity()) return null;
+		
+		int length = data.getInt((int)offset);
+		if (length<=1 || offset+4+length>data.capacity()) return null;
+		byte compression = data.get((int)offset+4);
+		
+		ByteBuffer slice = data.duplicate();
+		slice.position((int)offset+5);
+		slice.limit((int)offset+4+length);
+		InputStream compressed = new ByteBufferInputStream(slice.slice());
+		
+		switch(compression) {
+			case GZIP: return new BufferedInputStream(new GZIPInputStream(compressed), 8192);
+			case ZLIB: return new BufferedInputStream(new InflaterInputStream(compressed), 8192);
+			default: return null;
+		}
+	}
+	
+	/** Reads straight out of a (mapped) ByteBuffer, so only the parts of the file that are actually used get paged in */
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+		
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (!buffer.hasRemaining()) return -1;
+			int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+		
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package io.github.cottonmc.resources.census;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the ores in a list of region files. Lists of more than one region are split in half and forked, so every
+ * region ends up as its own task and the pool can spread them across cores.
+ */
+public class RegionTask extends RecursiveTask<Census> {
+	private static final long serialVersionUID = 1L;
+	public static final int SECTION_VOLUME = 16*16*16;
+	
+	private final List<Region> regions;
+	private final Pattern match;
+	private final Consumer<Region> onFinished;
+	
+	public RegionTask(List<Region> regions, Pattern match, Consumer<Region> onFinished) {
+		this.regions = regions;
+		this.match = match;
+		this.onFinished = onFinished;
+	}
+	
+	@Override
+	protected Census compute() {
+		if (regions.isEmpty()) return new Census();
+		if (regions.size()==1) {
+			Census result = scan(regions.get(0));
+			onFinished.accept(regions.get(0));
+			return result;
+		}
+		
+		int half = regions.size()/2;
+		RegionTask left = new RegionTask(regions.subList(0, half), match, onFinished);
+		RegionTask right = new RegionTask(regions.subList(half, regions.size()), match, onFinished);
+		left.fork();
+		Census result = right.compute();
+		return result.merge(left.join());
+	}
+	
+	private Census scan(Region region) {
+		Census census = new Census();
+		census.regions = 1;
+		Scanner scanner = new Scanner(census, match);
+		
+		try {
+			RegionFile file = new RegionFile(region.file);
+			for(int i=0; i<RegionFile.CHUNKS; i++) {
+				try (InputStream in = file.openChunk(i)) {
+					if (in!=null) scanner.scanChunk(new NbtReader(in));
+				} catch (IOException ex) {
+					System.err.println("Skipping a broken chunk in "+region.file+": "+ex.getMessage());
+				}
+			}
+		} catch (IOException ex) {
+			System.err.println("Couldn't read "+region.file+": "+ex.getMessage());
+		}
+		
+		census.setDimension(region.dimension);
+		return census;
+	}
+	
+	/** A region file, and the dimension it belongs to */
+	public static class Region {
+		public final File file;
+		public final String dimension;
+		
+		public Region(File file, String dimension) {
+			this.file = file;
+			this.dimension = dimension;
+		}
+	}
+	
+	/** Walks chunk NBT, pulling out just the status, biomes, and block sections */
+	private static class Scanner {
+		private final Census census;
+		private final Pattern match;
+		/** Which histogram each block id we've seen counts towards, or null if it doesn't match */
+		private final HashMap<String, Census.Histogram> lookup = new HashMap<>();
+		
+		private Scanner(Census census, Pattern match) {
+			this.census = census;
+			this.match = match;
+		}
+		
+		private Census.Histogram lookup(String block) {
+			if (lookup.containsKey(block)) return lookup.get(block);
+			Census.Histogram result = match.matcher(block).matches() ? census.get(block) : null;
+			lookup.put(block, result);
+			return result;
+		}
+		
+		public void scanChunk(NbtReader nbt) throws IOException {
+			if (nbt.readType()!=NbtReader.COMPOUND) return;
+			nbt.readName();
+			for(byte type = nbt.readType(); type!=NbtReader.END; type = nbt.readType()) {
+				String name = nbt.readName();
+				if (type==NbtReader.COMPOUND && name.equals("Level")) {
+					scanLevel(nbt);
+				} else {
+					nbt.skip(type);
+				}
+			}
+		}
+		
+		private void scanLevel(NbtReader nbt) throws IOException {
+			String status = null;
+			int[] biomes = null;
+			int sections = 0;
+			int skipped = 0;
+			List<Section> toCount = new ArrayList<>();
+			
+			//Tags can come in any order, so sections are held onto until we know the chunk is finished and have its biomes
+			for(byte type = nbt.readType(); type!=NbtReader.END; type = nbt.readType()) {
+				String name = nbt.readName();
+				if (type==NbtReader.STRING && name.equals("Status")) {
+					status = nbt.readString();
+				} else if (type==NbtReader.INT_ARRAY && name.equals("Biomes")) {
+					biomes = nbt.readIntArray();
+				} else if (type==NbtReader.LIST && name.equals("Sections")) {
+					byte elementType = nbt.readListType();
+					int length = nbt.readLength();
+					for(int i=0; i<length; i++) {
+						if (elementType!=NbtReader.COMPOUND) {
+							nbt.skip(elementType);
+							continue;
+						}
+						Section section = readSection(nbt);
+						if (section.palette==null) continue; //Light-only section
+						sections++;
+						if (section.states==null) {
+							skipped++;
+						} else {
+							toCount.add(section);
+						}
+					}
+				} else {
+					nbt.skip(type);
+				}
+			}
+			
+			if (!"full".equals(status)) {
+				census.unfinishedChunks++;
+				return;
+			}
+			census.chunks++;
+			census.sections += sections;
+			census.skippedSections += skipped;
+			if (biomes!=null && biomes.length!=256) biomes = null;
+			for(Section section : toCount) {
+				count(section, biomes);
+			}
+		}
+		
+		/** Reads a section. Its states are left null if its palette has nothing we're counting. */
+		private Section readSection(NbtReader nbt) throws IOException {
+			Section result = new Section();
+			boolean any = false;
+			long[] states = null;
+			
+			for(byte type = nbt.readType(); type!=NbtReader.END; type = nbt.readType()) {
+				String name = nbt.readName();
+				if (type==NbtReader.BYTE && name.equals("Y")) {
+					result.y = nbt.readByte();
+				} else if (type==NbtReader.LIST && name.equals("Palette")) {
+					byte elementType = nbt.readListType();
+					int length = nbt.readLength();
+					result.palette = new Census.Histogram[length];
+					for(int i=0; i<length; i++) {
+						if (elementType!=NbtReader.COMPOUND) {
+							nbt.skip(elementType);
+							continue;
+						}
+						String block = readBlockName(nbt);
+						if (block==null) continue;
+						result.palette[i] = lookup(block);
+						if (result.palette[i]!=null) any = true;
+					}
+				} else if (type==NbtReader.LONG_ARRAY && name.equals("BlockStates") && (result.palette==null || any)) {
+					//If the palette came first and there's nothing in it, we don't need the states at all
+					states = nbt.readLongArray();
+				} else {
+					nbt.skip(type);
+				}
+			}
+			
+			if (any) result.states = states;
+			return result;
+		}
+		
+		/** Reads a palette entry, and returns the block's id. Block state properties don't matter for a census. */
+		private String readBlockName(NbtReader nbt) throws IOException {
+			String result = null;
+			for(byte type = nbt.readType(); type!=NbtReader.END; type = nbt.readType()) {
+				String name = nbt.readName();
+				if (type==NbtReader.STRING && name.equals("Name")) {
+					result = nbt.readString();
+				} else {
+					nbt.skip(type);
+				}
+			}
+			return result;
+		}
+		
+		/**
+		 * Decodes a section's packed palette indices. In this version of the format, entries are packed back to back,
+		 * so one entry can straddle two longs.
+		 */
+		private void count(Section section, int[] biomes) {
+			long[] states = section.states;
+			if (section.y<0 || section.y>=16 || states.length==0 || states.length%64!=0) return;
+			int bits = states.length / 64; //4096 entries, 64 bits per long
+			long mask = (1L << bits) - 1;
+			Census.Histogram[] palette = section.palette;
+			int baseY = section.y << 4;
+			
+			for(int i=0; i<SECTION_VOLUME; i++) {
+				long bitIndex = (long)i * bits;
+				int index = (int)(bitIndex >> 6);
+				int offset = (int)(bitIndex & 63);
+				long value = states[index] >>> offset;
+				if (offset+bits>64) value |= states[index+1] << (64-offset);
+				int paletteIndex = (int)(value & mask);
+				
+				if (paletteIndex>=palette.length) continue;
+				Census.Histogram histogram = palette[paletteIndex];
+				//Entries go y, then z, then x, and biomes go z, then x
+				if (histogram!=null) histogram.add(baseY + (i >> 8), (biomes==null) ? -1 : biomes[i & 0xFF]);
+			}
+		}
+	}
+	
+	private static class Section {
+		private int y = -1;
+		private Census.Histogram[] palette = null;
+		private long[] states = null;
+	}
+}
@@ -1,14 +1,18 @@
 package io.github.cottonmc.resources;
 
 import io.github.cottonmc.jankson.JanksonFactory;
+import io.github.cottonmc.resources.command.OregenStatsCommand;
 import io.github.cottonmc.resources.command.StripCommand;
+import io.github.cottonmc.resources.command.StripJob;
 import io.github.cottonmc.resources.config.CottonResourcesConfig;
 import io.github.cottonmc.resources.oregen.BiomeSpec;
 import io.github.cottonmc.resources.oregen.CottonOreFeature;
 import io.github.cottonmc.resources.oregen.DimensionSpec;
-import io.github.cottonmc.resources.oregen.OreGenerationSettings;
+import io.github.cottonmc.resources.oregen.HeightDistribution;
+import io.github.cottonmc.resources.oregen.OreBiomeDecorator;
 import io.github.cottonmc.resources.oregen.OregenResourceListener;
 import io.github.cottonmc.resources.oregen.TaggableSpec;
+import io.github.cottonmc.resources.oregen.VeinShape;
 import io.github.cottonmc.resources.tag.WorldTagReloadListener;
 import io.github.cottonmc.resources.type.GemResourceType;
 import io.github.cottonmc.resources.type.GenericResourceType;
@@ -18,10 +22,12 @@ import io.github.cottonmc.resources.type.ResourceType;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.client.itemgroup.FabricItemGroupBuilder;
 import net.fabricmc.fabric.api.event.registry.RegistryEntryAddedCallback;
+import net.fabricmc.fabric.api.event.server.ServerTickCallback;
 import net.fabricmc.fabric.api.registry.CommandRegistry;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.block.Block;
+import net.minecraft.command.arguments.BlockPosArgumentType;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.item.ItemStack;
 import net.minecraft.server.command.CommandManager;
@@ -33,8 +39,7 @@ import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.gen.GenerationStep;
-import net.minecraft.world.gen.decorator.Decorator;
-import net.minecraft.world.gen.decorator.RangeDecoratorConfig;
+import net.minecraft.world.gen.decorator.DecoratorConfig;
 import net.minecraft.world.gen.feature.FeatureConfig;
 
 import java.io.File;
@@ -49,13 +54,12 @@ import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 
 import blue.endless.jankson.Jankson;
 import blue.endless.jankson.JsonElement;
 import blue.endless.jankson.JsonGrammar;
-import blue.endless.jankson.JsonObject;
-import blue.endless.jankson.impl.SyntaxError;
 
 public class CottonResources implements ModInitializer {
 	public static final String COMMON = "c";
@@ -134,13 +138,30 @@ public class CottonResources implements ModInitializer {
 		ResourceManagerHelper.get(net.minecraft.resource.ResourceType.SERVER_DATA).registerReloadListener(new OregenResourceListener());
 		ResourceManagerHelper.get(net.minecraft.resource.ResourceType.SERVER_DATA).registerReloadListener(new WorldTagReloadListener());
 		
+		ServerTickCallback.EVENT.register(StripJob::tick);
+		
 		CommandRegistry.INSTANCE.register(false, (dispatcher)->{
 			LiteralCommandNode<ServerCommandSource> stripCommandNode = CommandManager.literal("strip")
 					.executes(new StripCommand())
 					.requires((source)->source.hasPermissionLevel(3))
+					.then(CommandManager.argument("radius", IntegerArgumentType.integer(0, StripCommand.MAX_RADIUS)).executes(StripCommand::stripRadius))
+					.then(CommandManager.literal("box")
+							.then(CommandManager.argument("from", BlockPosArgumentType.create())
+									.then(CommandManager.argument("to", BlockPosArgumentType.create()).executes(StripCommand::stripBox))))
+					.then(CommandManager.literal("cancel").executes(StripCommand::cancel))
 					.build();
 			
 			dispatcher.getRoot().addChild(stripCommandNode);
+			
+			LiteralCommandNode<ServerCommandSource> oregenCommandNode = CommandManager.literal("oregen")
+					.requires((source)->source.hasPermissionLevel(3))
+					.then(CommandManager.literal("stats")
+							.executes(new OregenStatsCommand(false))
+							.then(CommandManager.literal("json").executes(new OregenStatsCommand(true)))
+							.then(CommandManager.literal("reset").executes(OregenStatsCommand::reset)))
+					.build();
+			
+			dispatcher.getRoot().addChild(oregenCommandNode);
 		});
 		
 		File file = new File(FabricLoader.getInstance().getConfigDirectory(),"CottonResources.json5");
@@ -159,12 +180,13 @@ public class CottonResources implements ModInitializer {
 	}
 	
 	private static void setupBiomeGenerator(Biome biome) {
+		//Every biome gets the feature, but it's only scheduled where the current oregen config can place something
 		biome.addFeature(GenerationStep.Feature.UNDERGROUND_ORES,
 			Biome.configureFeature(
 				CottonOreFeature.COTTON_ORE,
 				FeatureConfig.DEFAULT,
-				Decorator.COUNT_RANGE,
-				new RangeDecoratorConfig(1, 0, 0, 256)
+				OreBiomeDecorator.COTTON_ORE_BIOME,
+				DecoratorConfig.DEFAULT
 			)
 		);
 	}
@@ -216,37 +238,7 @@ public class CottonResources implements ModInitializer {
 	
 	
 	public static CottonResourcesConfig loadConfig() {
-		File file = new File(FabricLoader.getInstance().getConfigDirectory(),"CottonResources.json5");
-		
-		Jankson jankson = JanksonFactory.builder()
-				.registerTypeAdapter(OreGenerationSettings.class, OreGenerationSettings::deserialize)
-				.build();
-		try {
-			JsonObject json = jankson.load(file);
-			System.out.println("Loading: "+json);
-			CottonResourcesConfig loading = jankson.fromJson(json, CottonResourcesConfig.class);
-			System.out.println("Loaded Map: "+loading.generators);
-			//Manually reload oregen because BiomeSpec and DimensionSpec can be fussy
-			
-			JsonObject oregen = json.getObject("generators");
-			if (oregen!=null) {
-				System.out.println("RELOADING "+oregen.size()+" entries");
-				for(Map.Entry<String, JsonElement> entry : oregen.entrySet()) {
-					if (entry.getValue() instanceof JsonObject) {
-						OreGenerationSettings settings = OreGenerationSettings.deserialize((JsonObject)entry.getValue());
-						loading.generators.put(entry.getKey(), settings);
-					}
-				}
-			}
-			
-			System.out.println("RELOADED Map: "+loading.generators);
-			
-			return loading;
-		} catch (IOException | SyntaxError e) {
-			e.printStackTrace();
-		}
-		
-		return new CottonResourcesConfig();
+		return CottonResourcesConfig.load(new File(FabricLoader.getInstance().getConfigDirectory(),"CottonResources.json5"));
 	}
 
 	public static void saveConfig(CottonResourcesConfig config) {
@@ -255,6 +247,8 @@ public class CottonResources implements ModInitializer {
 		Jankson jankson = JanksonFactory.builder()
 				.registerSerializer(BiomeSpec.class, (spec, marshaller)->TaggableSpec.serialize(spec))
 				.registerSerializer(DimensionSpec.class, (spec, marshaller)->TaggableSpec.serialize(spec))
+				.registerSerializer(HeightDistribution.class, (dist, marshaller)->HeightDistribution.serialize(dist))
+				.registerSerializer(VeinShape.class, (shape, marshaller)->VeinShape.serialize(shape))
 				.build();
 		
 		JsonElement json = jankson.toJson(config);
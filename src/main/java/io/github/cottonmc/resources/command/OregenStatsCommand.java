@@ -0,0 +1,78 @@
+package io.github.cottonmc.resources.command;
+
+import java.util.Map;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+
+import blue.endless.jankson.JsonObject;
+import blue.endless.jankson.JsonPrimitive;
+import io.github.cottonmc.resources.CottonResources;
+import io.github.cottonmc.resources.oregen.OregenStats;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.LiteralText;
+
+/**
+ * Dumps the per-resource oregen counters, either as one line per resource or as json. The json is also written to the
+ * log so it can be picked up from a server console.
+ */
+public class OregenStatsCommand implements Command<ServerCommandSource> {
+	private final boolean json;
+
+	public OregenStatsCommand(boolean json) {
+		this.json = json;
+	}
+
+	@Override
+	public int run(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		Map<String, OregenStats.Snapshot> stats = OregenStats.snapshot();
+		if (stats.isEmpty()) {
+			context.getSource().sendFeedback(new LiteralText("No ores have been generated yet."), false);
+			return 0;
+		}
+
+		if (json) {
+			String result = toJson(stats).toJson(false, false);
+			CottonResources.LOGGER.info("Oregen stats: {}", result);
+			context.getSource().sendFeedback(new LiteralText(result), false);
+		} else {
+			context.getSource().sendFeedback(new LiteralText("resource: chunks / clusters / placed / rejected by host / rejected by replacement / already planned / outside world / lost to other ores / lost spills / total ms (us per chunk)"), false);
+			for(Map.Entry<String, OregenStats.Snapshot> entry : stats.entrySet()) {
+				OregenStats.Snapshot s = entry.getValue();
+				double millis = s.nanos / 1_000_000.0;
+				double microsPerChunk = (s.chunks==0) ? 0 : s.nanos / 1_000.0 / s.chunks;
+				context.getSource().sendFeedback(new LiteralText(String.format("%s: %d / %d / %d / %d / %d / %d / %d / %d / %d / %.2f (%.1f)",
+						entry.getKey(), s.chunks, s.clusters, s.placed, s.rejectedByHost, s.rejectedByReplacement, s.rejectedByClaim, s.outsideWorld, s.lostToConflict, s.lostSpills, millis, microsPerChunk)), false);
+			}
+		}
+
+		return stats.size();
+	}
+
+	public static int reset(CommandContext<ServerCommandSource> context) {
+		OregenStats.reset();
+		context.getSource().sendFeedback(new LiteralText("Oregen stats reset."), true);
+		return 1;
+	}
+
+	public static JsonObject toJson(Map<String, OregenStats.Snapshot> stats) {
+		JsonObject result = new JsonObject();
+		for(Map.Entry<String, OregenStats.Snapshot> entry : stats.entrySet()) {
+			OregenStats.Snapshot s = entry.getValue();
+			JsonObject obj = new JsonObject();
+			obj.put("chunks", new JsonPrimitive(s.chunks));
+			obj.put("clusters", new JsonPrimitive(s.clusters));
+			obj.put("placed", new JsonPrimitive(s.placed));
+			obj.put("rejected_by_host", new JsonPrimitive(s.rejectedByHost));
+			obj.put("rejected_by_replacement", new JsonPrimitive(s.rejectedByReplacement));
+			obj.put("rejected_by_claim", new JsonPrimitive(s.rejectedByClaim));
+			obj.put("outside_world", new JsonPrimitive(s.outsideWorld));
+			obj.put("lost_to_conflict", new JsonPrimitive(s.lostToConflict));
+			obj.put("lost_spills", new JsonPrimitive(s.lostSpills));
+			obj.put("nanos", new JsonPrimitive(s.nanos));
+			result.put(entry.getKey(), obj);
+		}
+		return result;
+	}
+}
@@ -1,59 +1,182 @@
 package io.github.cottonmc.resources.command;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import com.google.common.collect.ImmutableSet;
 import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
+import net.minecraft.client.network.packet.ChunkDataS2CPacket;
+import net.minecraft.command.arguments.BlockPosArgumentType;
 import net.minecraft.server.command.ServerCommandSource;
-import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.tag.BlockTags;
 import net.minecraft.tag.Tag;
 import net.minecraft.text.LiteralText;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.chunk.Chunk;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.chunk.light.LightingProvider;
 
+/**
+ * Strips every block in c:strip_command out of an area, leaving the ores behind. Plain /strip does the caller's chunk,
+ * /strip &lt;radius&gt; does a square of chunks around it, and /strip box does every section that overlaps a box. The
+ * actual stripping is queued up as a {@link StripJob} and spread out across ticks; /strip cancel stops it.
+ * 
+ * <p>Work happens a section at a time: sections whose palette can't contain a strippable state are skipped without
+ * looking at their blocks, and changed sections are written directly and sent to players as one packet, instead of one
+ * block update per block.
+ */
 public class StripCommand implements Command<ServerCommandSource>{
 	
 	private static final Set<Block> BUILTIN_STRIPS = ImmutableSet.<Block>of();
+	private static final EnumSet<Heightmap.Type> HEIGHTMAPS = EnumSet.of(Heightmap.Type.MOTION_BLOCKING, Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, Heightmap.Type.OCEAN_FLOOR, Heightmap.Type.WORLD_SURFACE);
+	public static final int MAX_RADIUS = 32;
+	public static final int MAX_CHUNKS = (MAX_RADIUS*2+1)*(MAX_RADIUS*2+1);
 	
 	@Override
 	public int run(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
-		ServerPlayerEntity caller = context.getSource().getPlayer();
-		Chunk chunk = caller.getEntityWorld().getChunk(caller.getBlockPos());
-		context.getSource().sendFeedback(new LiteralText("Stripping "+chunk.getPos()+"..."), true);
+		return stripRadius(context.getSource(), 0);
+	}
+	
+	public static int stripRadius(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		return stripRadius(context.getSource(), IntegerArgumentType.getInteger(context, "radius"));
+	}
+	
+	public static int stripRadius(ServerCommandSource source, int radius) throws CommandSyntaxException {
+		ChunkPos center = new ChunkPos(new BlockPos(source.getPosition()));
+		return start(source, center.x-radius, center.z-radius, center.x+radius, center.z+radius, 0, 15);
+	}
+	
+	public static int stripBox(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		BlockPos from = BlockPosArgumentType.getBlockPos(context, "from");
+		BlockPos to = BlockPosArgumentType.getBlockPos(context, "to");
 		
+		int minSection = MathHelper.clamp(Math.min(from.getY(), to.getY()) >> 4, 0, 15);
+		int maxSection = MathHelper.clamp(Math.max(from.getY(), to.getY()) >> 4, 0, 15);
+		return start(context.getSource(),
+				Math.min(from.getX(), to.getX()) >> 4, Math.min(from.getZ(), to.getZ()) >> 4,
+				Math.max(from.getX(), to.getX()) >> 4, Math.max(from.getZ(), to.getZ()) >> 4,
+				minSection, maxSection);
+	}
+	
+	public static int cancel(CommandContext<ServerCommandSource> context) {
+		int cancelled = StripJob.cancel(context.getSource().getName());
+		if (cancelled==0) {
+			context.getSource().sendError(new LiteralText("You don't have a strip running."));
+		}
+		return cancelled;
+	}
+	
+	/** Queues up a job for a (chunk-inclusive) area, nearest chunks first */
+	private static int start(ServerCommandSource source, int minX, int minZ, int maxX, int maxZ, int minSection, int maxSection) {
 		Tag<Block> stripTag = BlockTags.getContainer().get(new Identifier("c:strip_command"));
-		if (stripTag==null) return -1;
-		
-		for(int z=0; z<16; z++) {
-			for(int x=0; x<16; x++) {
-				for(int y=0; y<256; y++) {
-					BlockPos pos = chunk.getPos().toBlockPos(x, y, z);
-					BlockState toReplace = caller.getEntityWorld().getBlockState(pos);
-					if (toReplace.isAir()) continue;
-					
-					boolean strip = false;
-					if (stripTag!=null) {
-						strip = stripTag.contains(toReplace.getBlock());
-					} else {
-						strip = BUILTIN_STRIPS.contains(toReplace.getBlock());
-					}
+		if (stripTag==null) {
+			source.sendError(new LiteralText("There's no c:strip_command block tag, so /strip doesn't know what to remove."));
+			return -1;
+		}
+		
+		long area = (long)(maxX-minX+1) * (maxZ-minZ+1);
+		if (area>MAX_CHUNKS) {
+			source.sendError(new LiteralText("That's "+area+" chunks; the most /strip can do at once is "+MAX_CHUNKS+"."));
+			return 0;
+		}
+		if (StripJob.isRunning(source.getName())) {
+			source.sendError(new LiteralText("You already have a strip running. Use /strip cancel to stop it."));
+			return 0;
+		}
+		
+		List<ChunkPos> chunks = new ArrayList<>();
+		for(int z=minZ; z<=maxZ; z++) {
+			for(int x=minX; x<=maxX; x++) {
+				chunks.add(new ChunkPos(x, z));
+			}
+		}
+		int centerX = (minX+maxX) >> 1;
+		int centerZ = (minZ+maxZ) >> 1;
+		chunks.sort(Comparator.comparingInt((ChunkPos pos)->Math.max(Math.abs(pos.x-centerX), Math.abs(pos.z-centerZ))));
+		
+		StripJob job = new StripJob(source, source.getWorld(), chunks, minSection, maxSection, getStripPredicate(stripTag));
+		StripJob.start(job);
+		
+		if (chunks.size()==1) {
+			source.sendFeedback(new LiteralText("Stripping "+chunks.get(0)+"..."), true);
+		} else {
+			source.sendFeedback(new LiteralText("Stripping "+chunks.size()+" chunks from "+new ChunkPos(minX, minZ)+" to "+new ChunkPos(maxX, maxZ)+"..."), true);
+		}
+		return chunks.size();
+	}
+	
+	public static Predicate<BlockState> getStripPredicate(Tag<Block> stripTag) {
+		if (stripTag!=null) {
+			return (state)->stripTag.contains(state.getBlock());
+		} else {
+			return (state)->BUILTIN_STRIPS.contains(state.getBlock());
+		}
+	}
+	
+	/**
+	 * Replaces every strippable block in one 16x16x16 section of a chunk with air, without block updates or packets.
+	 * Returns how many blocks were removed; if it's nonzero, the section needs to be passed to
+	 * {@link #finishChunk(ServerWorld, WorldChunk, int)} afterwards.
+	 */
+	public static int stripSection(ServerWorld world, WorldChunk chunk, int sectionY, Predicate<BlockState> strip) {
+		ChunkSection section = chunk.getSectionArray()[sectionY];
+		if (section==WorldChunk.EMPTY_SECTION || section.isEmpty()) return 0;
+		//Checks the section's palette, not its blocks, so this is cheap. Palettes can hold stale entries, so a hit can
+		//still turn out to have nothing to strip, but a miss means there's definitely nothing.
+		if (!section.method_19523(strip)) return 0;
+		
+		BlockState air = Blocks.AIR.getDefaultState();
+		LightingProvider lighting = world.getChunkManager().getLightingProvider();
+		int baseX = chunk.getPos().getStartX();
+		int baseY = sectionY << 4;
+		int baseZ = chunk.getPos().getStartZ();
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+		int count = 0;
+		
+		for(int y=0; y<16; y++) {
+			for(int z=0; z<16; z++) {
+				for(int x=0; x<16; x++) {
+					BlockState state = section.getBlockState(x, y, z);
+					if (state.isAir() || !strip.test(state)) continue;
 					
-					if (strip) caller.getEntityWorld().setBlockState(pos, Blocks.AIR.getDefaultState(), 3);
+					section.setBlockState(x, y, z, air);
+					lighting.checkBlock(pos.set(baseX+x, baseY+y, baseZ+z)); //Copied when it's queued, and run on the lighting thread
+					count++;
 				}
 			}
 		}
 		
+		return count;
+	}
+	
+	/**
+	 * Fixes up a chunk after some of its sections have been stripped: heightmaps are recalculated, the chunk is marked
+	 * for saving, and every changed section is sent to the players watching the chunk in a single packet.
+	 */
+	public static void finishChunk(ServerWorld world, WorldChunk chunk, int sectionMask) {
+		if (sectionMask==0) return;
 		
-		context.getSource().sendFeedback(new LiteralText("Chunk stripped."), true);
-		return 1;
+		Heightmap.populateHeightmaps(chunk, HEIGHTMAPS);
+		chunk.setShouldSave(true);
+		
+		ChunkDataS2CPacket packet = new ChunkDataS2CPacket(chunk, sectionMask);
+		world.getChunkManager().threadedAnvilChunkStorage.getPlayersWatchingChunk(chunk.getPos(), false)
+			.forEach((player)->player.networkHandler.sendPacket(packet));
 	}
-
 }
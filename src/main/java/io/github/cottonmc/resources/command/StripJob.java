@@ -0,0 +1,195 @@
+package io.github.cottonmc.resources.command;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.LiteralText;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * A /strip over an area, spread out across server ticks. Each tick, every running job gets to work through a bounded
+ * number of sections, within a bounded amount of time, so even a large area never holds up a tick for long. Jobs are
+ * owned by whoever started them, and report their progress back to that command source.
+ * 
+ * <p>Chunks are never loaded on the server thread. A job puts a ticket on the next few chunks it needs, so they load or
+ * generate in the background like any other ticketed chunk, and only starts on a chunk once it's fully there. The
+ * ticket stays until the job is done with the chunk, so it can't be unloaded in between ticks.
+ */
+public class StripJob {
+	/** How many sections all running jobs may strip in one tick, between them */
+	public static final int SECTIONS_PER_TICK = 64;
+	/** How long all running jobs may spend in one tick, between them */
+	public static final long NANOS_PER_TICK = 5_000_000L;
+	/** How many sections' worth of budget starting on a chunk costs */
+	public static final int CHUNK_COST = 8;
+	/** How many chunks a job keeps ticketed, counting the one it's working on, so the next ones load while it works */
+	public static final int CHUNKS_AHEAD = 4;
+	/** Sections skipped because of their palette are nearly free, but they still count for something */
+	public static final int SKIPPED_SECTIONS_PER_COST = 16;
+	
+	private static final ChunkTicketType<ChunkPos> TICKET = ChunkTicketType.create("cotton_strip", Comparator.comparingLong(ChunkPos::toLong));
+	private static final List<StripJob> JOBS = new ArrayList<>();
+	
+	private final ServerCommandSource source;
+	private final ServerWorld world;
+	private final List<ChunkPos> chunks;
+	private final int minSection;
+	private final int maxSection;
+	private final Predicate<BlockState> strip;
+	private final long startTime = System.currentTimeMillis();
+	
+	private int chunkIndex = 0;
+	/** Chunks from chunkIndex up to this have a ticket */
+	private int ticketed = 0;
+	private WorldChunk chunk = null;
+	private int sectionY;
+	private int sectionMask;
+	private int skipped = 0;
+	private long stripped = 0;
+	private int lastReported = 0;
+	private boolean cancelled = false;
+	
+	public StripJob(ServerCommandSource source, ServerWorld world, List<ChunkPos> chunks, int minSection, int maxSection, Predicate<BlockState> strip) {
+		this.source = source;
+		this.world = world;
+		this.chunks = chunks;
+		this.minSection = minSection;
+		this.maxSection = maxSection;
+		this.strip = strip;
+	}
+	
+	public String getOwner() {
+		return source.getName();
+	}
+	
+	public int getChunkCount() {
+		return chunks.size();
+	}
+	
+	public static void start(StripJob job) {
+		JOBS.add(job);
+	}
+	
+	public static boolean isRunning(String owner) {
+		for(StripJob job : JOBS) {
+			if (job.getOwner().equals(owner)) return true;
+		}
+		return false;
+	}
+	
+	/** Cancels every job started by owner, and returns how many there were */
+	public static int cancel(String owner) {
+		int count = 0;
+		for(StripJob job : JOBS) {
+			if (job.getOwner().equals(owner)) {
+				job.cancelled = true;
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/** Runs on every server tick */
+	public static void tick(MinecraftServer server) {
+		if (JOBS.isEmpty()) return;
+		
+		//Share the budget out evenly, so one big job can't starve the others
+		int budget = Math.max(1, SECTIONS_PER_TICK / JOBS.size());
+		long nanos = NANOS_PER_TICK / JOBS.size();
+		for(Iterator<StripJob> it = JOBS.iterator(); it.hasNext(); ) {
+			StripJob job = it.next();
+			if (job.world.getServer()!=server) {
+				//Left over from a server that's since stopped. Its world won't be ticked again, but drop the tickets anyway so
+				//they can't keep its chunks pinned
+				job.releaseTickets();
+				it.remove();
+			} else if (job.cancelled) {
+				job.finishCurrentChunk();
+				job.releaseTickets();
+				job.source.sendFeedback(new LiteralText("Strip cancelled after "+job.chunkIndex+" of "+job.chunks.size()+" chunks. ("+job.stripped+" blocks removed)"), true);
+				it.remove();
+			} else if (job.work(budget, System.nanoTime()+nanos)) {
+				long seconds = (System.currentTimeMillis()-job.startTime) / 1000L;
+				job.source.sendFeedback(new LiteralText("Stripped "+job.chunks.size()+" chunks in "+seconds+"s. ("+job.stripped+" blocks removed)"), true);
+				it.remove();
+			}
+		}
+	}
+	
+	/** Strips up to budget sections' worth of work, or until the deadline passes. Returns true once the job is done. */
+	private boolean work(int budget, long deadline) {
+		while (budget>0 && System.nanoTime()<deadline) {
+			if (chunk==null) {
+				if (chunkIndex>=chunks.size()) return true;
+				requestTickets();
+				ChunkPos pos = chunks.get(chunkIndex);
+				chunk = world.getChunkManager().getWorldChunk(pos.x, pos.z); //Only if it's already fully loaded
+				if (chunk==null) return false; //Still loading or generating; check again next tick
+				sectionY = minSection;
+				sectionMask = 0;
+				budget -= CHUNK_COST;
+				continue;
+			}
+			
+			int count = StripCommand.stripSection(world, chunk, sectionY, strip);
+			if (count>0) {
+				sectionMask |= 1 << sectionY;
+				stripped += count;
+				budget--;
+			} else if (++skipped >= SKIPPED_SECTIONS_PER_COST) {
+				skipped = 0;
+				budget--;
+			}
+			
+			sectionY++;
+			if (sectionY>maxSection) {
+				finishCurrentChunk();
+				world.getChunkManager().removeTicket(TICKET, chunks.get(chunkIndex), 0, chunks.get(chunkIndex));
+				chunkIndex++;
+				reportProgress();
+			}
+		}
+		return false;
+	}
+	
+	/** Tickets the chunk being worked on and the few after it, so they're loaded or generated in the background */
+	private void requestTickets() {
+		int end = Math.min(chunks.size(), chunkIndex+CHUNKS_AHEAD);
+		for(ticketed = Math.max(ticketed, chunkIndex); ticketed<end; ticketed++) {
+			ChunkPos pos = chunks.get(ticketed);
+			world.getChunkManager().addTicket(TICKET, pos, 0, pos);
+		}
+	}
+	
+	private void releaseTickets() {
+		for(int i=chunkIndex; i<ticketed; i++) {
+			ChunkPos pos = chunks.get(i);
+			world.getChunkManager().removeTicket(TICKET, pos, 0, pos);
+		}
+		ticketed = chunkIndex;
+	}
+	
+	private void finishCurrentChunk() {
+		if (chunk==null) return;
+		StripCommand.finishChunk(world, chunk, sectionMask);
+		chunk = null;
+	}
+	
+	/** Tells the owner whenever another tenth of the job is done */
+	private void reportProgress() {
+		int tenths = chunkIndex * 10 / chunks.size();
+		if (tenths>lastReported && chunkIndex<chunks.size()) {
+			lastReported = tenths;
+			source.sendFeedback(new LiteralText("Stripping... "+(tenths*10)+"% ("+chunkIndex+" of "+chunks.size()+" chunks)"), false);
+		}
+	}
+}
@@ -1,14 +1,22 @@
 package io.github.cottonmc.resources.config;
 
+import io.github.cottonmc.jankson.JanksonFactory;
 import io.github.cottonmc.resources.oregen.OreGenerationSettings;
 import blue.endless.jankson.Comment;
+import blue.endless.jankson.Jankson;
+import blue.endless.jankson.JsonElement;
+import blue.endless.jankson.JsonObject;
+import blue.endless.jankson.impl.SyntaxError;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 public class CottonResourcesConfig {
-	@Comment("If true, vanilla's ore gen will be cancelled.")
+	@Comment("If true, vanilla's ore gen will be cancelled, and the vanilla ores will be generated by cotton:ore instead.")
 	public boolean override_vanilla_generation = false;
 	
 	@Comment("Listing a resource here forces it to generate in the world, even if no mod requests it, unless it's also forbidden")
@@ -19,4 +27,35 @@ public class CottonResourcesConfig {
 	
 	@Comment("Additional settings for ore generators. Identical to the datapack json")
 	public HashMap<String, OreGenerationSettings> generators = new HashMap<>();
+	
+	/**
+	 * Reads a config file. Kept apart from the mod class so tools running outside the game can read the same file the
+	 * same way. Returns a default config if the file can't be read.
+	 */
+	public static CottonResourcesConfig load(File file) {
+		Jankson jankson = JanksonFactory.builder()
+				.registerTypeAdapter(OreGenerationSettings.class, OreGenerationSettings::deserialize)
+				.build();
+		try {
+			JsonObject json = jankson.load(file);
+			CottonResourcesConfig loading = jankson.fromJson(json, CottonResourcesConfig.class);
+			//Manually reload oregen because BiomeSpec and DimensionSpec can be fussy
+			
+			JsonObject oregen = json.getObject("generators");
+			if (oregen!=null) {
+				for(Map.Entry<String, JsonElement> entry : oregen.entrySet()) {
+					if (entry.getValue() instanceof JsonObject) {
+						OreGenerationSettings settings = OreGenerationSettings.deserialize((JsonObject)entry.getValue());
+						loading.generators.put(entry.getKey(), settings);
+					}
+				}
+			}
+			
+			return loading;
+		} catch (IOException | SyntaxError e) {
+			e.printStackTrace();
+		}
+		
+		return new CottonResourcesConfig();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package io.github.cottonmc.resources.mixin;
+
+import io.github.cottonmc.resources.oregen.SpillStore;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(ServerWorld.class)
+public abstract class MixinServerWorld implements SpillStore.Holder {
+	@Unique
+	private volatile SpillStore cotton_spillStore;
+
+	@Override
+	public SpillStore cotton_getSpillStore() {
+		return cotton_spillStore;
+	}
+
+	@Override
+	public void cotton_setSpillStore(SpillStore store) {
+		cotton_spillStore = store;
+	}
+}
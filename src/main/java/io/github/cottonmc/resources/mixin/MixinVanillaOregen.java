@@ -1,6 +1,7 @@
 package io.github.cottonmc.resources.mixin;
 
 import io.github.cottonmc.resources.CottonResources;
+import io.github.cottonmc.resources.oregen.VanillaOres;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.DefaultBiomeFeatures;
 import org.spongepowered.asm.mixin.Mixin;
@@ -15,6 +16,7 @@ public abstract class MixinVanillaOregen {
     @Inject(method = "addDefaultOres", at = @At(value = "HEAD"))
     private static void mixinDefaultOres(Biome biome_1, CallbackInfo ci) {
         if (CottonResources.CONFIG.override_vanilla_generation) {
+            VanillaOres.addDefaultOres(biome_1);
             ci.cancel();
         }
     }
@@ -22,6 +24,7 @@ public abstract class MixinVanillaOregen {
     @Inject(method = "addExtraGoldOre", at = @At(value = "HEAD"))
     private static void mixinExtraGoldOre(Biome biome_1, CallbackInfo ci) {
         if (CottonResources.CONFIG.override_vanilla_generation) {
+            VanillaOres.addExtraGoldOre(biome_1);
             ci.cancel();
         }
     }
@@ -29,6 +32,7 @@ public abstract class MixinVanillaOregen {
     @Inject(method = "addEmeraldOre", at = @At(value = "HEAD"))
     private static void mixinEmeraldOre(Biome biome_1, CallbackInfo ci) {
         if (CottonResources.CONFIG.override_vanilla_generation) {
+            VanillaOres.addEmeraldOre(biome_1);
             ci.cancel();
         }
     }
@@ -0,0 +1,70 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Random;
+
+/**
+ * Walker's alias method: picks an index with probability proportional to its weight in constant time, using one
+ * nextInt and one nextFloat per draw. Tables are built once (Vose's O(n) construction) and are immutable afterwards,
+ * so they can be shared between worldgen threads.
+ */
+public final class AliasTable {
+	/** Chance of keeping column i instead of taking its alias */
+	private final float[] keep;
+	private final int[] alias;
+	
+	private AliasTable(float[] keep, int[] alias) {
+		this.keep = keep;
+		this.alias = alias;
+	}
+	
+	public int size() {
+		return keep.length;
+	}
+	
+	public int sample(Random rand) {
+		int i = rand.nextInt(keep.length);
+		return (rand.nextFloat()<keep[i]) ? i : alias[i];
+	}
+	
+	/**
+	 * Builds a table over these weights. Negative and non-finite weights count as zero; if nothing is left, every index
+	 * is equally likely. There must be at least one weight.
+	 */
+	public static AliasTable of(double[] weights) {
+		int n = weights.length;
+		if (n==0) throw new IllegalArgumentException("An alias table needs at least one weight");
+		
+		double total = 0;
+		for(double w : weights) if (w>0 && Double.isFinite(w)) total += w;
+		
+		double[] scaled = new double[n];
+		for(int i=0; i<n; i++) {
+			double w = weights[i];
+			scaled[i] = (total==0) ? 1 : (w>0 && Double.isFinite(w)) ? w*n/total : 0;
+		}
+		
+		float[] keep = new float[n];
+		int[] alias = new int[n];
+		//Both worklists share one array: small columns grow up from the bottom, large ones down from the top
+		int[] work = new int[n];
+		int small = 0;
+		int large = n;
+		for(int i=0; i<n; i++) {
+			if (scaled[i]<1) work[small++] = i; else work[--large] = i;
+		}
+		
+		while(small>0 && large<n) {
+			int s = work[--small];
+			int l = work[large++];
+			keep[s] = (float)scaled[s];
+			alias[s] = l;
+			scaled[l] = (scaled[l]+scaled[s])-1;
+			if (scaled[l]<1) work[small++] = l; else work[--large] = l;
+		}
+		//Whatever's left is 1 up to rounding error
+		while(large<n) { int l = work[large++]; keep[l] = 1; alias[l] = l; }
+		while(small>0) { int s = work[--small]; keep[s] = 1; alias[s] = s; }
+		
+		return new AliasTable(keep, alias);
+	}
+}
@@ -1,82 +1,225 @@
 package io.github.cottonmc.resources.oregen;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Random;
 
-import com.google.common.primitives.Floats;
+/**
+ * An immutable cloud of block offsets, sorted from the center outwards. Offsets are packed into a single int each,
+ * ten signed bits per axis, so a clump is just an int[]. Use a {@link Sampler} to draw positions out of it.
+ */
+public class Clump {
+	protected final int[] offsets;
+	/** How far the furthest offset reaches along any one axis */
+	protected final int reach;
 
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Vec3i;
+	protected Clump(int[] offsets) {
+		this.offsets = offsets;
+		int reach = 0;
+		for(int offset : offsets) {
+			reach = Math.max(reach, Math.max(Math.abs(unpackX(offset)), Math.max(Math.abs(unpackY(offset)), Math.abs(unpackZ(offset)))));
+		}
+		this.reach = reach;
+	}
 
-public class Clump {
-	protected ArrayList<Entry> entries = new ArrayList<>();
-	
-	public BlockPos removeUniform(Random rand, int dx, int dy, int dz) {
-		int index = rand.nextInt(entries.size());
-		return entries.remove(index).blockPos(dx, dy, dz);
-	}
-	
-	public BlockPos removeGaussian(Random rand, int dx, int dy, int dz) {
-		int index = (int)(Math.abs(rand.nextGaussian()*entries.size()));
-		if (index>=entries.size()) index=0; //in unlikely scenarios, gaussian numbers can go way outside the bounds.
-		if (index<0) index=0;
-		
-		return entries.remove(index).blockPos(dx, dy, dz);
-	}
-	
-	public Clump copy() {
-		Clump result = new Clump();
-		result.entries.addAll(this.entries);
-		return result;
-	}
-	
 	public static Clump of(float r) {
 		int ir = (int)Math.ceil(r);
-		Clump result = new Clump();
-		
+		int side = ir*2+1;
+		long[] keys = new long[side*side*side];
+		int[] candidates = new int[keys.length];
+		int count = 0;
+
 		for(int z=-ir; z<=ir; z++) {
 			for(int x=-ir; x<=ir; x++) {
 				for(int y=-ir; y<=ir; y++) {
-					float d = (float)Math.sqrt(x*x+y*y+z*z);
-					if (d<=r) result.entries.add(new Entry(x,y,z,d));
+					int d2 = x*x+y*y+z*z;
+					float d = (float)Math.sqrt(d2);
+					if (d<=r) {
+						//Sort key is distance first, then insertion order, so the sort is stable like the old Collections.sort
+						keys[count] = ((long)d2 << 32) | count;
+						candidates[count] = pack(x, y, z);
+						count++;
+					}
+				}
+			}
+		}
+		if (count==0) return new Clump(new int[] { pack(0, 0, 0) });
+
+		Arrays.sort(keys, 0, count);
+		int[] offsets = new int[count];
+		for(int i=0; i<count; i++) {
+			offsets[i] = candidates[(int)keys[i]];
+		}
+
+		return new Clump(offsets);
+	}
+
+	/**
+	 * Builds a clump out of every offset within reach of the origin that the metric puts at 1 or less, sorted by the
+	 * metric from the center outwards. Ties keep their scan order, like {@link #of(float)}.
+	 */
+	public static Clump of(int reach, Metric metric) {
+		return of(reach, reach, reach, metric);
+	}
+
+	/** Like {@link #of(int, Metric)}, but only looks as far along each axis as it's told to */
+	public static Clump of(int reachX, int reachY, int reachZ, Metric metric) {
+		long[] keys = new long[(reachX*2+1)*(reachY*2+1)*(reachZ*2+1)];
+		int[] candidates = new int[keys.length];
+		int count = 0;
+
+		for(int z=-reachZ; z<=reachZ; z++) {
+			for(int x=-reachX; x<=reachX; x++) {
+				for(int y=-reachY; y<=reachY; y++) {
+					float d = (float)metric.distance(x, y, z);
+					if (d<=1) {
+						//Non-negative float bits sort the same way the floats do
+						keys[count] = ((long)Float.floatToIntBits(Math.max(d, 0f)) << 32) | count;
+						candidates[count] = pack(x, y, z);
+						count++;
+					}
 				}
 			}
 		}
-		if (result.entries.isEmpty()) result.entries.add(new Entry(0,0,0,0));
-		
-		Collections.sort(result.entries, (a, b)->Floats.compare(a.d, b.d));
-		
-		return result;
+		if (count==0) return new Clump(new int[] { pack(0, 0, 0) });
+
+		Arrays.sort(keys, 0, count);
+		int[] offsets = new int[count];
+		for(int i=0; i<count; i++) {
+			offsets[i] = candidates[(int)keys[i]];
+		}
+
+		return new Clump(offsets);
 	}
-	
+
 	public int size() {
-		return entries.size();
+		return offsets.length;
 	}
-	
+
 	public boolean isEmpty() {
-		return entries.isEmpty();
-	}
-	
-	private static class Entry {
-		public float d;
-		public int x;
-		public int y;
-		public int z;
-		
-		public Entry(int x, int y, int z, float d) {
-			this.d = d;
-			this.x = x;
-			this.y = y;
-			this.z = z;
+		return offsets.length==0;
+	}
+
+	public int reach() {
+		return reach;
+	}
+
+	/** Returns true if both clumps hold the same offsets, in any order */
+	public boolean sameShape(Clump other) {
+		int[] a = offsets.clone();
+		int[] b = other.offsets.clone();
+		Arrays.sort(a);
+		Arrays.sort(b);
+		return Arrays.equals(a, b);
+	}
+
+	public int getOffset(int index) {
+		return offsets[index];
+	}
+
+	public int getX(int index) {
+		return unpackX(offsets[index]);
+	}
+
+	public int getY(int index) {
+		return unpackY(offsets[index]);
+	}
+
+	public int getZ(int index) {
+		return unpackZ(offsets[index]);
+	}
+
+	public static int pack(int x, int y, int z) {
+		return ((x & 0x3FF) << 20) | ((y & 0x3FF) << 10) | (z & 0x3FF);
+	}
+
+	public static int unpackX(int packed) {
+		return (packed << 2) >> 22;
+	}
+
+	public static int unpackY(int packed) {
+		return (packed << 12) >> 22;
+	}
+
+	public static int unpackZ(int packed) {
+		return (packed << 22) >> 22;
+	}
+
+	/** How far an offset is from a shape's center, scaled so that the shape's surface is at 1 */
+	public interface Metric {
+		double distance(int x, int y, int z);
+	}
+
+	/**
+	 * Draws offsets out of a Clump without replacement. This picks exactly the same entries, in the same order, as
+	 * copying the clump into a list and removing entries from it, but it keeps a Fenwick tree of which entries are left
+	 * instead, so there's no copying, no shifting, and nothing allocated once the sampler has grown to fit the largest
+	 * clump it's used with. Samplers aren't thread-safe; keep one per thread.
+	 */
+	public static class Sampler {
+		private Clump clump;
+		private int remaining;
+		/** 1-based Fenwick tree over "is entry i still available", always all ones between draws of different clumps */
+		private int[] tree = new int[0];
+		private int[] removed = new int[0];
+		private int removedCount;
+
+		public Sampler reset(Clump clump) {
+			int n = clump.size();
+			if (tree.length<n+1) {
+				tree = new int[n+1];
+				for(int i=1; i<=n; i++) tree[i] = i & -i;
+				removed = new int[n];
+			} else {
+				//Put back everything the last clump took out
+				for(int i=0; i<removedCount; i++) {
+					for(int j=removed[i]+1; j<tree.length; j+=j & -j) tree[j]++;
+				}
+			}
+			removedCount = 0;
+			this.clump = clump;
+			this.remaining = n;
+			return this;
+		}
+
+		public int remaining() {
+			return remaining;
+		}
+
+		public boolean isEmpty() {
+			return remaining==0;
 		}
-		
-		public Vec3i pos() {
-			return new Vec3i(x,y,z);
+
+		/** Removes an entry picked uniformly from the ones that are left. Returns its index in the Clump. */
+		public int removeUniform(Random rand) {
+			return remove(rand.nextInt(remaining));
+		}
+
+		/** Removes an entry picked with a half-normal distribution that favors the center. Returns its index in the Clump. */
+		public int removeGaussian(Random rand) {
+			int index = (int)(Math.abs(rand.nextGaussian()*remaining));
+			if (index>=remaining) index=0; //in unlikely scenarios, gaussian numbers can go way outside the bounds.
+			if (index<0) index=0;
+
+			return remove(index);
 		}
-		
-		public BlockPos blockPos(int x, int y, int z) {
-			return new BlockPos(this.x+x, this.y+y, this.z+z);
+
+		/** Removes the k'th remaining entry, and returns its index in the Clump */
+		protected int remove(int k) {
+			int n = clump.size();
+			int pos = 0;
+			int rank = k+1;
+			for(int step = Integer.highestOneBit(n); step>0; step >>= 1) {
+				int next = pos+step;
+				if (next<=n && tree[next]<rank) {
+					pos = next;
+					rank -= tree[next];
+				}
+			}
+			//pos is now the 0-based index of the entry we want
+			for(int j=pos+1; j<tree.length; j+=j & -j) tree[j]--;
+			removed[removedCount++] = pos;
+			remaining--;
+			return pos;
 		}
 	}
 }
@@ -3,9 +3,6 @@ package io.github.cottonmc.resources.oregen;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
-import net.minecraft.tag.BlockTags;
-import net.minecraft.tag.Tag;
-import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.registry.Registry;
 import net.minecraft.world.IWorld;
@@ -16,89 +13,151 @@ import net.minecraft.world.gen.chunk.ChunkGeneratorConfig;
 import net.minecraft.world.gen.feature.DefaultFeatureConfig;
 import net.minecraft.world.gen.feature.Feature;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Random;
-import java.util.Set;
 import java.util.function.Predicate;
 
 public class CottonOreFeature extends Feature<DefaultFeatureConfig> {
 	public static final CottonOreFeature COTTON_ORE = Registry.register(Registry.FEATURE, "cotton:ore", new CottonOreFeature());
 	
-	public static Clump[] SPHERES = {
+	public static final Clump[] SPHERES = {
 			Clump.of(1), Clump.of(2), Clump.of(3), Clump.of(4), Clump.of(5), Clump.of(6), Clump.of(7), Clump.of(8), Clump.of(9)
 	};
 	
+	private static final ThreadLocal<Clump.Sampler> SAMPLERS = ThreadLocal.withInitial(Clump.Sampler::new);
+	private static final ThreadLocal<OreRandom> RANDOMS = ThreadLocal.withInitial(OreRandom::new);
+	private static final ThreadLocal<PlacementBuffer> BUFFERS = ThreadLocal.withInitial(PlacementBuffer::new);
+	private static final ThreadLocal<Claims> CLAIMS = ThreadLocal.withInitial(Claims::new);
+	
 	public static final Predicate<Block> NATURAL_STONE = (it)->
 			it==Blocks.STONE    ||
 			it==Blocks.GRANITE  ||
 			it==Blocks.DIORITE  ||
 			it==Blocks.ANDESITE;
+	private static final Predicate<BlockState> NATURAL_STONE_STATE = (it)->NATURAL_STONE.test(it.getBlock());
 
 	public CottonOreFeature() {
 		super(DefaultFeatureConfig::deserialize);
 	}
 
 	public boolean generate(IWorld world, ChunkGenerator<? extends ChunkGeneratorConfig> generator, Random rand, BlockPos pos, DefaultFeatureConfig uselessConfig) {
-		OreVoteConfig config = OregenResourceListener.getConfig();
-		if (config.ores.isEmpty()) return true; // We didn't generate anything, but yes, don't retry.
-		
-		
 		Chunk toGenerateIn = world.getChunk(pos);
+		SpillStore spills = SpillStore.get(world);
+		OrePlacer placer = new OrePlacer(world, toGenerateIn, spills);
+		if (spills!=null) spills.drain(toGenerateIn.getPos(), placer); //Ore from neighbors' veins goes in first
+		
 		Biome biome = toGenerateIn.getBiome(pos);
-		//System.out.println("Generating into "+toGenerateIn.getPos()+" <- "+config.ores);
-		for(String s : config.ores) {
-			OreGenerationSettings settings = config.generators.get(s);
-			if (settings==null) continue;
-			
-			if (settings.dimensions.test(world.getDimension()) && settings.biomes.test(biome)) {
+		GeneratorIndex.Entry[] generators = OregenResourceListener.getSnapshot().generators.get(world.getDimension().getType(), biome);
+		if (generators.length==0) return true; // We didn't generate anything, but yes, don't retry.
+		
+		generate(placer, generators, world.getSeed());
+		return false;
+	}
+	
+	/**
+	 * Runs the given generators against a single chunk. This is the whole feature minus the world lookups, so it can
+	 * also be driven against a bare ProtoChunk outside of a running world.
+	 * 
+	 * <p>Each generator draws from its own random stream, seeded from the world seed, the chunk position and the
+	 * resource name, so what one resource places never depends on which other resources are enabled or what order
+	 * they run in.
+	 * 
+	 * <p>Generation happens in two phases. First every generator is planned into a {@link PlacementBuffer}, which only
+	 * reads the chunk; then the buffer is applied, writing each position once, in section order.
+	 * 
+	 * @throws IllegalArgumentException if there are more generators than a PlacementBuffer can tell apart
+	 */
+	public void generate(OrePlacer placer, GeneratorIndex.Entry[] generators, long worldSeed) {
+		if (generators.length>PlacementBuffer.MAX_RESOURCES) throw new IllegalArgumentException("Can't generate more than "+PlacementBuffer.MAX_RESOURCES+" resources in one chunk, got "+generators.length);
+		PlacementBuffer buffer = BUFFERS.get();
+		//Normally both are left empty by the last chunk, but not if it threw partway through
+		buffer.clear();
+		CLAIMS.get().clear();
+		OregenStats.Tally[] tallies = new OregenStats.Tally[generators.length];
+		long[] nanos = new long[generators.length];
+		for(int i=0; i<generators.length; i++) {
+			long start = System.nanoTime();
+			tallies[i] = plan(placer, generators[i], i, worldSeed, buffer);
+			nanos[i] = System.nanoTime()-start;
+		}
+		
+		long start = System.nanoTime();
+		int[] planned = new int[generators.length];
+		int totalPlanned = 0;
+		for(int i=0; i<generators.length; i++) {
+			planned[i] = tallies[i].placed;
+			totalPlanned += planned[i];
+		}
+		buffer.apply(placer, tallies); //Moves placements that lost a conflict from placed to lostToConflict
+		long applyNanos = System.nanoTime()-start;
+		
+		for(int i=0; i<generators.length; i++) {
+			//Split the time spent applying between the generators, by how much each of them planned
+			long share = (totalPlanned==0) ? 0 : applyNanos * planned[i] / totalPlanned;
+			generators[i].stats.record(tallies[i], nanos[i]+share);
+		}
+	}
+	
+	/**
+	 * Plans one generator's clusters for a chunk into a PlacementBuffer. The world is only read, never written, so
+	 * different resources can be planned independently (each into its own buffer, if they're planned at the same time)
+	 * and merged with {@link PlacementBuffer#addAll(PlacementBuffer)} before applying.
+	 * 
+	 * @param resourceIndex this generator's index in the chunk's generator list; lower indices win conflicts
+	 */
+	public OregenStats.Tally plan(OrePlacer placer, GeneratorIndex.Entry generator, int resourceIndex, long worldSeed, PlacementBuffer into) {
+		OregenStats.Tally tally = new OregenStats.Tally();
+		OreRandom rand = RANDOMS.get();
+		rand.setSeed(OreRandom.seedFor(worldSeed, placer.getStartX() >> 4, placer.getStartZ() >> 4, generator.seed));
+		Claims claims = CLAIMS.get();
+		WeightedStates blocks = generator.ores;
+		int radius = generator.radius;
+		
+		//Which sections have anything this resource could replace, so clusters that can't place anything skip their reads
+		ReplacementTable replacements = generator.replacements;
+		int hostSections = (replacements!=null) ?
+				placer.getSectionsWith(replacements, (state)->replacements.canHost(state.getBlock())) :
+				placer.getSectionsWith(NATURAL_STONE, NATURAL_STONE_STATE);
+		
+		int clusterCount = generator.clusterCount;
+		if (generator.extraClusters>0) clusterCount += rand.nextInt(generator.extraClusters+1);
+		for(int i=0; i<clusterCount; i++) {
+			//Pick an epicenter. Clusters can reach into neighboring chunks; anything that does is spilled over to them.
+			int clusterX = rand.nextInt(16);
+			int clusterZ = rand.nextInt(16);
+			int clusterY = generator.height.sample(rand);
+			Clump[] clumps = generator.clumps;
+			Clump clump = (clumps.length==1) ? clumps[0] : clumps[rand.nextInt(clumps.length)];
 			
-				//For now, spit debug info
-				if (settings.ores.isEmpty()) {
-					continue;
-				}
-				int clusters = settings.cluster_count;
-				if (clusters<1) clusters=1;
-				
-				if (settings.cluster_size<=0) settings.cluster_size = 1;
-				
-				int blocksGenerated = 0;
-				for(int i=0; i<clusters; i++) {
-					//Pick an epicenter
-					//int maxCluster = 7;
-					int overbleed = 0; //Increase to allow ore deposits to overlap South/East chunks by this amount
-					
-					int radius = (int) Math.log(settings.cluster_size) + 1;
-					if (radius>7) radius=7; //radius can't go past 7 without adding some overbleed
-					for(int j=0; j<SPHERES.length; j++) { //find the smallest clump in our vocabulary which expresses the number of ores
-						Clump clump = SPHERES[j];
-						if (clump.size()>=settings.cluster_size) {
-							//System.out.println("Cluster size "+settings.cluster_size+" matched against clump #"+j);
-							radius = j+1;
-							break;
-						}
-					}
-					
-					int clusterX = rand.nextInt(16 + overbleed - (radius*2))+radius;
-					int clusterZ = rand.nextInt(16 + overbleed - (radius*2))+radius;
-					int heightRange = settings.max_height-settings.min_height; if (heightRange<1) heightRange=1;
-					int clusterY = rand.nextInt(heightRange)+settings.min_height;
-					
-					clusterX += toGenerateIn.getPos().getStartX();
-					clusterZ += toGenerateIn.getPos().getStartZ();
-					
-					int generatedThisCluster = generateVeinPartGaussianClump(s, world, clusterX, clusterY, clusterZ, settings.cluster_size, radius, settings.ores, 85, rand);
-					blocksGenerated += generatedThisCluster;
-					//System.out.println("    Generated "+generatedThisCluster+" out of "+settings.cluster_size+" expected.");
-				}
-				
-				//System.out.println("    Generated "+blocksGenerated+" in "+clusters+" clusters out of "+settings.cluster_size+"*"+clusters+"="+(settings.cluster_size*clusters));
-			} else {
-				//System.out.println("    skipping "+s+" here.");
+			if (!canHost(hostSections, clusterX, clusterY, clusterZ, radius)) {
+				skipCluster(generator.replacements, clusterY, clump, rand, tally);
+				continue;
 			}
+			
+			clusterX += placer.getStartX();
+			clusterZ += placer.getStartZ();
+			
+			generateVeinPartGaussianClump(generator.replacements, placer, into, resourceIndex, claims, clusterX, clusterY, clusterZ, generator.clusterSize, clump, blocks, 85, rand, tally);
 		}
 		
-		return false;
+		claims.clear();
+		return tally;
+	}
+	
+	/**
+	 * Returns false if a cluster can't possibly place anything, because it's entirely inside this chunk and none of the
+	 * sections it touches have any host blocks. Clusters reaching into a neighbor always return true, since we only know
+	 * about this chunk's sections. x and z are relative to the chunk.
+	 */
+	protected static boolean canHost(int hostSections, int x, int y, int z, int radius) {
+		if (hostSections==OrePlacer.ALL_SECTIONS) return true;
+		if (x-radius<0 || x+radius>15 || z-radius<0 || z+radius>15) return true;
+		
+		int minSection = Math.max(0, (y-radius) >> 4);
+		int maxSection = Math.min(15, (y+radius) >> 4);
+		if (minSection>maxSection) return false; //Entirely outside the world
+		int span = (-1 >>> (31-maxSection)) & (-1 << minSection);
+		return (hostSections & span)!=0;
 	}
 	
 	/*
@@ -157,81 +216,132 @@ public class CottonOreFeature extends Feature<DefaultFeatureConfig> {
 		return replaced;
 	}*/
 	
-	protected int generateVeinPartGaussianClump(String resourceName, IWorld world, int x, int y, int z, int clumpSize, int radius, Set<BlockState> states, int density, Random rand) {
-		int radIndex = radius-1;
-		Clump clump = (radIndex<SPHERES.length) ? SPHERES[radIndex].copy() : Clump.of(radius);
+	/**
+	 * Stands in for generateVeinPartGaussianClump on a cluster that {@link #canHost(int, int, int, int, int)} ruled out.
+	 * Every candidate would be rejected before anything random was drawn for it, so this draws the same values from rand
+	 * and counts the same rejections, just without reading the world. The clusters after it come out exactly as if it
+	 * had been tried.
+	 */
+	protected void skipCluster(ReplacementTable replacements, int y, Clump clump, Random rand, OregenStats.Tally tally) {
+		tally.clusters++;
+		Clump.Sampler sampler = SAMPLERS.get().reset(clump);
+		
+		for(int i=0; i<sampler.remaining(); i++) {
+			if (sampler.isEmpty()) break;
+			int yi = y+clump.getY(sampler.removeGaussian(rand));
+			if (yi<0 || yi>255) {
+				tally.outsideWorld++;
+			} else if (replacements!=null) {
+				tally.rejectedByReplacement++;
+			} else {
+				tally.rejectedByHost++;
+			}
+			tally.candidates++;
+		}
+	}
+	
+	protected int generateVeinPartGaussianClump(ReplacementTable replacements, OrePlacer placer, PlacementBuffer into, int resourceIndex, Claims claims, int x, int y, int z, int clumpSize, Clump clump, WeightedStates blocks, int density, Random rand, OregenStats.Tally tally) {
+		tally.clusters++;
+		Clump.Sampler sampler = SAMPLERS.get().reset(clump);
 		
 		//int rad2 = radius * radius;
-		BlockState[] blocks = states.toArray(new BlockState[states.size()]);
 		int replaced = 0;
-		for(int i=0; i<clump.size(); i++) {
-			if (clump.isEmpty()) break;
-			BlockPos pos = clump.removeGaussian(rand, x, y, z);
-			if (replace(world, pos.getX(), pos.getY(), pos.getZ(), resourceName, blocks, rand)) {
+		for(int i=0; i<sampler.remaining(); i++) {
+			if (sampler.isEmpty()) break;
+			int index = sampler.removeGaussian(rand);
+			if (replace(placer, into, resourceIndex, tally.candidates, claims, x+clump.getX(index), y+clump.getY(index), z+clump.getZ(index), replacements, blocks, rand, tally)) {
+				tally.placed++;
 				replaced++;
-				if (replaced>=clumpSize) return replaced;
 			}
+			tally.candidates++;
+			if (replaced>=clumpSize) return replaced;
 		}
 		
 		return replaced;
 	}
 	
 	/**
+	 * Checks whether the block at x, y, z can host this resource, and if it can, plans a placement there. The block is
+	 * read as it was before this feature pass; positions this resource already planned are treated as taken.
 	 * 
-	 * @param world
+	 * @param placer
+	 * @param into the buffer to plan into
+	 * @param resourceIndex
+	 * @param sequence this candidate's number within the resource
+	 * @param claims the positions this resource has already planned
 	 * @param x
 	 * @param y
 	 * @param z
+	 * @param replacements the replacement rules for this resource, or null if it has none
 	 * @param states fallback states to use if there is no replacer for natural stone
 	 * @param rand
-	 * @return
+	 * @param tally where to count the candidate if it's rejected
+	 * @return true if a placement was planned
 	 */
-	public boolean replace(IWorld world, int x, int y, int z, String resource, BlockState[] states, Random rand) {
-		BlockPos pos = new BlockPos(x, y, z);
-		BlockState toReplace = world.getBlockState(pos);
-		HashMap<String, String> replacementSpecs = OregenResourceListener.getConfig().replacements.get(resource);
-		if (replacementSpecs!=null) {
-			//System.out.println("Activating replacementSpecs for resource "+resource);
-			for(Map.Entry<String, String> entry : replacementSpecs.entrySet()) {
-				if (test(toReplace.getBlock(), entry.getKey())) {
-					BlockState replacement = getBlockState(entry.getValue(), rand);
-					if (replacement==null) continue;
-					
-					world.setBlockState(pos, replacement, 3);
-					return true;
-				}
+	public boolean replace(OrePlacer placer, PlacementBuffer into, int resourceIndex, int sequence, Claims claims, int x, int y, int z, ReplacementTable replacements, WeightedStates states, Random rand, OregenStats.Tally tally) {
+		if (y<0 || y>255) {
+			tally.outsideWorld++;
+			return false;
+		}
+		int localX = x-placer.getStartX();
+		int localZ = z-placer.getStartZ();
+		if (claims.isClaimed(localX, y, localZ)) {
+			tally.rejectedByClaim++;
+			return false;
+		}
+		
+		BlockState toReplace = placer.getBlockState(x, y, z);
+		BlockState replacement;
+		if (replacements!=null) {
+			replacement = replacements.pick(toReplace.getBlock(), rand);
+			if (replacement==null) { //There are replacements defined for this resource, but none could be applied.
+				tally.rejectedByReplacement++;
+				return false;
 			}
-			return false; //There are replacements defined for this resource, but none could be applied.
 		} else {
-			if (!NATURAL_STONE.test(toReplace.getBlock())) return false; //Fixes surface copper
+			if (!NATURAL_STONE.test(toReplace.getBlock())) { //Fixes surface copper
+				tally.rejectedByHost++;
+				return false;
+			}
 			
-			BlockState replacement = states[rand.nextInt(states.length)];
-			world.setBlockState(pos, replacement, 3);
-			return true;
+			replacement = states.pick(rand);
 		}
+		
+		claims.claim(localX, y, localZ);
+		into.add(localX, y, localZ, resourceIndex, sequence, toReplace.getBlock(), replacement);
+		return true;
 	}
 	
-	public boolean test(Block block, String spec) {
-		if (spec.startsWith("#")) {
-			Tag<Block> tag = BlockTags.getContainer().get(new Identifier(spec.substring(1)));
-			if (tag==null) return false;
-			return tag.contains(block);
-		} else {
-			Block b = Registry.BLOCK.get(new Identifier(spec));
-			if (b==Blocks.AIR) return false;
-			return block==b;
+	/**
+	 * The in-chunk positions one resource has planned so far, as a bitset over the chunk, so that a resource never
+	 * plans the same position twice. Only the bits that were set get cleared, so clearing is as cheap as planning.
+	 */
+	protected static class Claims {
+		private final long[] bits = new long[16*256*16/64];
+		private int[] claimed = new int[256];
+		private int count = 0;
+		
+		private static int index(int x, int y, int z) {
+			return (y << 8) | (z << 4) | x;
 		}
-	}
-	
-	public BlockState getBlockState(String spec, Random rnd) {
-		if (spec.startsWith("#")) {
-			Tag<Block> tag = BlockTags.getContainer().get(new Identifier(spec.substring(1)));
-			if (tag==null) return null;
-			return tag.getRandom(rnd).getDefaultState();
-		} else {
-			Block b = Registry.BLOCK.get(new Identifier(spec));
-			if (b==Blocks.AIR) return null;
-			return b.getDefaultState();
+		
+		public boolean isClaimed(int x, int y, int z) {
+			if ((x & ~15)!=0 || (z & ~15)!=0) return false;
+			int index = index(x, y, z);
+			return (bits[index >> 6] & (1L << index))!=0;
+		}
+		
+		public void claim(int x, int y, int z) {
+			if ((x & ~15)!=0 || (z & ~15)!=0) return;
+			int index = index(x, y, z);
+			bits[index >> 6] |= 1L << index;
+			if (count==claimed.length) claimed = Arrays.copyOf(claimed, count*2);
+			claimed[count++] = index;
+		}
+		
+		public void clear() {
+			for(int i=0; i<count; i++) bits[claimed[i] >> 6] = 0L;
+			count = 0;
 		}
 	}
 }
@@ -1,13 +1,7 @@
 package io.github.cottonmc.resources.oregen;
 
-import java.util.HashSet;
-import java.util.Set;
-
-import com.google.common.collect.ImmutableSet;
-
 import blue.endless.jankson.JsonElement;
 import io.github.cottonmc.resources.tag.DimensionTypeTags;
-import net.minecraft.tag.Tag;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 import net.minecraft.world.dimension.Dimension;
@@ -15,39 +9,29 @@ import net.minecraft.world.dimension.DimensionType;
 
 public class DimensionSpec extends TaggableSpec<Dimension> {
 	
+	@Override
 	public DimensionSpec allowTag(Identifier tag) {
-		allow.addAll(resolveTag(tag));
-		return this;	
+		super.allowTag(tag);
+		return this;
 	}
 	
+	@Override
 	public DimensionSpec denyTag(Identifier tag) {
-		deny.addAll(resolveTag(tag));
+		super.denyTag(tag);
 		return this;
 	}
 	
 	@Override
 	public boolean test(Dimension dim) {
-		Identifier id = DimensionType.getId(dim.getType());
-		
-		if (deny.contains(id)) return false; //nulls (unregistered dims) will always pass this test
-		if (allow.isEmpty() || allow.contains(ANY)) return true; //'*' will accept nulls
-		return allow.contains(id); //null-id dimensions will always fail this check
+		return test(dim.getType());
 	}
 	
-	/** Can't be directly used as a TypeAdapter because of array polymorphism, but can be used by a parent TypeAdapter */
-	public static DimensionSpec deserialize(JsonElement elem) {
-		return TaggableSpec.deserialize(new DimensionSpec(), elem, DimensionSpec::resolveTag);
+	public boolean test(DimensionType type) {
+		return testCompiled(Registry.DIMENSION, DimensionTypeTags.getContainer(), type);
 	}
 	
-	public static Set<Identifier> resolveTag(Identifier tagName) {
-		Tag<DimensionType> tag = DimensionTypeTags.CONTAINER.get(tagName);
-		if (tag==null) return ImmutableSet.of();
-		
-		HashSet<Identifier> result = new HashSet<>();
-		for(DimensionType dimension : tag.values()) {
-			Identifier id = Registry.DIMENSION.getId(dimension);
-			if (id!=null) result.add(id);
-		}
-		return result;
+	/** Can't be directly used as a TypeAdapter because of array polymorphism, but can be used by a parent TypeAdapter */
+	public static DimensionSpec deserialize(JsonElement elem) {
+		return TaggableSpec.deserialize(new DimensionSpec(), elem);
 	}
 }
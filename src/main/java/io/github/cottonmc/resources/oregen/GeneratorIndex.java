@@ -0,0 +1,140 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.cottonmc.resources.CottonResources;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.dimension.DimensionType;
+
+/**
+ * Answers "which generators can run here?" for each dimension type and biome, so that CottonOreFeature doesn't have to
+ * evaluate every enabled generator's DimensionSpec and BiomeSpec on every chunk. Registered dimensions and biomes are
+ * indexed up front; anything unregistered or registered later gets filled in the first time it's asked about.
+ */
+public class GeneratorIndex {
+	public static final Entry[] NONE = new Entry[0];
+
+	private final Entry[] all;
+	private final ConcurrentHashMap<DimensionType, ConcurrentHashMap<Biome, Entry[]>> index = new ConcurrentHashMap<>();
+	/** Whether any generator can run in each biome, in any dimension */
+	private final ConcurrentHashMap<Biome, Boolean> biomes = new ConcurrentHashMap<>();
+
+	private GeneratorIndex(Entry[] all) {
+		this.all = all;
+	}
+
+	/** Gets the generators which apply to this dimension type and biome, in the order they should run. Never null. */
+	public Entry[] get(DimensionType dimension, Biome biome) {
+		ConcurrentHashMap<Biome, Entry[]> byBiome = index.get(dimension);
+		if (byBiome==null) byBiome = index.computeIfAbsent(dimension, (it)->new ConcurrentHashMap<>());
+
+		Entry[] result = byBiome.get(biome);
+		if (result==null) result = byBiome.computeIfAbsent(biome, (it)->filter(dimension, it));
+		return result;
+	}
+
+	/**
+	 * Returns true if any generator could run in this biome, in any dimension. Biomes where this is false don't need the
+	 * ore feature at all.
+	 */
+	public boolean canGenerateIn(Biome biome) {
+		if (all.length==0) return false;
+		Boolean result = biomes.get(biome);
+		if (result==null) result = biomes.computeIfAbsent(biome, (it)->{
+			for(Entry entry : all) {
+				if (entry.settings.biomes.test(it)) return true;
+			}
+			return false;
+		});
+		return result;
+	}
+
+	private Entry[] filter(DimensionType dimension, Biome biome) {
+		ArrayList<Entry> result = new ArrayList<>();
+		for(Entry entry : all) {
+			if (entry.settings.dimensions.test(dimension) && entry.settings.biomes.test(biome)) result.add(entry);
+		}
+		return (result.isEmpty()) ? NONE : result.toArray(new Entry[result.size()]);
+	}
+
+	public static GeneratorIndex build(OreVoteConfig config, Map<String, ReplacementTable> replacements) {
+		ArrayList<Entry> all = new ArrayList<>();
+		for(String s : config.ores) {
+			OreGenerationSettings settings = config.generators.get(s);
+			if (settings==null || settings.ores.isEmpty()) continue;
+			all.add(new Entry(s, settings, replacements.get(s)));
+		}
+		//config.ores is a HashSet; sort so the run order (and who wins when two ores want the same block) is stable
+		all.sort(Comparator.comparing((Entry it)->it.resource));
+		if (all.size()>PlacementBuffer.MAX_RESOURCES) {
+			CottonResources.LOGGER.error("{} resources are enabled, but only {} can generate; the rest will be skipped", all.size(), PlacementBuffer.MAX_RESOURCES);
+			all.subList(PlacementBuffer.MAX_RESOURCES, all.size()).clear();
+		}
+
+		GeneratorIndex result = new GeneratorIndex(all.toArray(new Entry[all.size()]));
+		if (result.all.length==0) return result; //Every lookup will be NONE; nothing to precompute.
+
+		for(Biome biome : Registry.BIOME) {
+			result.canGenerateIn(biome);
+		}
+		for(DimensionType dimension : Registry.DIMENSION) {
+			for(Biome biome : Registry.BIOME) {
+				result.get(dimension, biome);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * One resource's generator, compiled from its OreGenerationSettings when the snapshot is built. Everything the hot
+	 * loop needs is resolved up front into final fields, so planning a chunk never touches the settings objects.
+	 */
+	public static class Entry {
+		public final String resource;
+		/** The settings this was compiled from; only used for dimension and biome filtering. Treat it as read-only. */
+		public final OreGenerationSettings settings;
+		/** The replacement rules for this resource, or null to place its ore_block into natural stone */
+		public final ReplacementTable replacements;
+		public final OregenStats.ResourceStats stats;
+		/** Mixed into each chunk's seed, so every resource gets its own random stream */
+		public final long seed;
+		/** The ore states to pick from when there are no replacement rules, and how likely each one is */
+		public final WeightedStates ores;
+		public final int clusterCount;
+		/** Up to how many more clusters than clusterCount a chunk can get; each chunk picks uniformly */
+		public final int extraClusters;
+		public final int clusterSize;
+		/** Every orientation of this generator's vein shape, sized to fit clusterSize; each cluster picks one */
+		public final Clump[] clumps;
+		/** How far the furthest of the clumps reaches from its center */
+		public final int radius;
+		public final HeightSampler height;
+
+		public Entry(String resource, OreGenerationSettings settings) {
+			this(resource, settings, null);
+		}
+
+		public Entry(String resource, OreGenerationSettings settings, ReplacementTable replacements) {
+			this.resource = resource;
+			this.settings = settings;
+			this.replacements = replacements;
+			this.stats = OregenStats.get(resource);
+			this.seed = OreRandom.hash(resource);
+			
+			this.ores = WeightedStates.of(settings.ores, settings.ore_weights);
+			this.clusterCount = Math.max(1, settings.cluster_count);
+			this.extraClusters = Math.max(0, settings.max_cluster_count - clusterCount);
+			this.clusterSize = Math.max(1, settings.cluster_size);
+			
+			this.clumps = settings.vein_shape.compile(clusterSize);
+			int radius = 0;
+			for(Clump clump : clumps) radius = Math.max(radius, clump.reach());
+			this.radius = radius;
+			this.height = settings.height_distribution.compile(settings.min_height, settings.max_height);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package io.github.cottonmc.resources.oregen;
+
+import blue.endless.jankson.JsonArray;
+import blue.endless.jankson.JsonElement;
+import blue.endless.jankson.JsonObject;
+import blue.endless.jankson.JsonPrimitive;
+import io.github.cottonmc.resources.CottonResources;
+
+/**
+ * How a generator spreads its clusters between min_height and max_height, as written in the oregen json. This is just
+ * the parsed spec; {@link #compile(int, int)} turns it into a HeightSampler when the snapshot is built.
+ * 
+ * <pre>
+ * "height_distribution": "uniform"                                  (the default)
+ * "height_distribution": "triangular"                               (peaks halfway between min_height and max_height)
+ * "height_distribution": { "type": "triangular", "peak": 16 }
+ * "height_distribution": { "type": "normal", "mean": 24, "deviation": 6 }
+ * "height_distribution": { "type": "custom", "density": [ 1, 2, 4, 2, 1 ] }
+ * </pre>
+ * 
+ * <p>Normal distributions default to the middle of the range and a deviation of a quarter of it. Custom densities give
+ * a relative weight to each Y level, starting at min_height; levels past the end of the array, or at or above
+ * max_height, get nothing.
+ */
+public class HeightDistribution {
+	public static final HeightDistribution UNIFORM = new HeightDistribution(Type.UNIFORM);
+	
+	public enum Type {
+		UNIFORM,
+		TRIANGULAR,
+		NORMAL,
+		CUSTOM;
+	}
+	
+	public final Type type;
+	/** Triangular peak or normal mean; NaN for the middle of the range */
+	public double center = Double.NaN;
+	/** Normal deviation; NaN for a quarter of the range */
+	public double deviation = Double.NaN;
+	/** Custom per-Y weights, starting at min_height */
+	public double[] density = new double[0];
+	
+	public HeightDistribution(Type type) {
+		this.type = type;
+	}
+	
+	public static HeightDistribution triangular(int peak) {
+		HeightDistribution result = new HeightDistribution(Type.TRIANGULAR);
+		result.center = peak;
+		return result;
+	}
+	
+	public static HeightDistribution normal(double mean, double deviation) {
+		HeightDistribution result = new HeightDistribution(Type.NORMAL);
+		result.center = mean;
+		result.deviation = deviation;
+		return result;
+	}
+	
+	public HeightSampler compile(int min, int max) {
+		double middle = (min + max - 1) / 2.0;
+		switch(type) {
+			case TRIANGULAR:
+				return HeightSampler.triangular(min, max, (int)Math.round(Double.isNaN(center) ? middle : center));
+			case NORMAL:
+				return HeightSampler.normal(min, max, Double.isNaN(center) ? middle : center, Double.isNaN(deviation) ? (max-min) / 4.0 : deviation);
+			case CUSTOM:
+				if (density.length==0) {
+					CottonResources.LOGGER.warn("A custom height_distribution has no density values; using uniform instead");
+					return HeightSampler.uniform(min, max);
+				}
+				double[] weights = new double[Math.max(0, Math.min(density.length, max-min))];
+				System.arraycopy(density, 0, weights, 0, weights.length);
+				return HeightSampler.weighted(min, weights);
+			case UNIFORM:
+			default:
+				return HeightSampler.uniform(min, max);
+		}
+	}
+	
+	public static HeightDistribution deserialize(JsonElement elem) {
+		if (elem instanceof JsonPrimitive) {
+			Type type = parseType(((JsonPrimitive) elem).asString());
+			return (type==null || type==Type.UNIFORM) ? UNIFORM : new HeightDistribution(type);
+		} else if (elem instanceof JsonObject) {
+			JsonObject obj = (JsonObject) elem;
+			Type type = parseType(obj.get(String.class, "type"));
+			if (type==null || type==Type.UNIFORM) return UNIFORM;
+			
+			HeightDistribution result = new HeightDistribution(type);
+			result.center = getDouble(obj, (type==Type.NORMAL) ? "mean" : "peak");
+			result.deviation = getDouble(obj, "deviation");
+			JsonElement density = obj.get("density");
+			if (density instanceof JsonArray) {
+				JsonArray arr = (JsonArray) density;
+				result.density = new double[arr.size()];
+				int i = 0;
+				for(JsonElement e : arr) {
+					Object val = (e instanceof JsonPrimitive) ? ((JsonPrimitive) e).getValue() : null;
+					result.density[i++] = (val instanceof Number) ? ((Number) val).doubleValue() : 0;
+				}
+			}
+			return result;
+		} else {
+			return UNIFORM;
+		}
+	}
+	
+	public static JsonElement serialize(HeightDistribution dist) {
+		String type = dist.type.name().toLowerCase();
+		if (Double.isNaN(dist.center) && Double.isNaN(dist.deviation) && dist.density.length==0) return new JsonPrimitive(type);
+		
+		JsonObject result = new JsonObject();
+		result.put("type", new JsonPrimitive(type));
+		if (!Double.isNaN(dist.center)) result.put((dist.type==Type.NORMAL) ? "mean" : "peak", new JsonPrimitive(dist.center));
+		if (!Double.isNaN(dist.deviation)) result.put("deviation", new JsonPrimitive(dist.deviation));
+		if (dist.density.length>0) {
+			JsonArray density = new JsonArray();
+			for(double d : dist.density) density.add(new JsonPrimitive(d));
+			result.put("density", density);
+		}
+		return result;
+	}
+	
+	private static Type parseType(String name) {
+		if (name==null) return null;
+		for(Type type : Type.values()) {
+			if (type.name().equalsIgnoreCase(name)) return type;
+		}
+		CottonResources.LOGGER.warn("Unknown height_distribution '{}', using uniform", name);
+		return null;
+	}
+	
+	private static double getDouble(JsonObject obj, String key) {
+		Double val = obj.get(Double.class, key);
+		return (val==null) ? Double.NaN : val;
+	}
+}
@@ -0,0 +1,74 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Random;
+
+/**
+ * Picks the Y level of a cluster's epicenter. Samplers are immutable and built once per reload, so they can be shared
+ * between worldgen threads.
+ */
+public interface HeightSampler {
+	int sample(Random rand);
+	
+	/** Picks evenly from min (inclusive) to max (exclusive). Empty or backwards ranges always pick min. */
+	static HeightSampler uniform(int min, int max) {
+		return new Uniform(min, max);
+	}
+	
+	/** Picks from min (inclusive) to max (exclusive), most often at peak and falling off linearly to either end */
+	static HeightSampler triangular(int min, int max, int peak) {
+		if (max<=min) return uniform(min, max);
+		peak = Math.max(min, Math.min(max-1, peak));
+		double[] weights = new double[max-min];
+		for(int y=min; y<max; y++) {
+			weights[y-min] = (y<=peak) ? (y-min+1) / (double)(peak-min+1) : (max-y) / (double)(max-peak);
+		}
+		return weighted(min, weights);
+	}
+	
+	/** Picks from a normal distribution, cut off at min (inclusive) and max (exclusive) */
+	static HeightSampler normal(int min, int max, double mean, double deviation) {
+		if (max<=min || !(deviation>0)) return uniform(min, max);
+		double[] weights = new double[max-min];
+		for(int y=min; y<max; y++) {
+			double z = (y-mean) / deviation;
+			weights[y-min] = Math.exp(-0.5 * z * z);
+		}
+		return weighted(min, weights);
+	}
+	
+	/** Picks Y level min+i with probability proportional to weights[i]. Empty weights always pick min. */
+	static HeightSampler weighted(int min, double[] weights) {
+		if (weights.length==0) return uniform(min, min);
+		return new Weighted(min, AliasTable.of(weights));
+	}
+	
+	final class Uniform implements HeightSampler {
+		private final int min;
+		private final int range;
+		
+		private Uniform(int min, int max) {
+			this.min = min;
+			this.range = Math.max(1, max-min);
+		}
+		
+		@Override
+		public int sample(Random rand) {
+			return rand.nextInt(range)+min;
+		}
+	}
+	
+	final class Weighted implements HeightSampler {
+		private final int min;
+		private final AliasTable table;
+		
+		private Weighted(int min, AliasTable table) {
+			this.min = min;
+			this.table = table;
+		}
+		
+		@Override
+		public int sample(Random rand) {
+			return table.sample(rand)+min;
+		}
+	}
+}
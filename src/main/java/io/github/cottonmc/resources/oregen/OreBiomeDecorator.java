@@ -0,0 +1,49 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.gen.chunk.ChunkGenerator;
+import net.minecraft.world.gen.chunk.ChunkGeneratorConfig;
+import net.minecraft.world.gen.decorator.Decorator;
+import net.minecraft.world.gen.decorator.NopeDecoratorConfig;
+
+/**
+ * Schedules cotton:ore once per chunk, but only where the current oregen config has something that could generate.
+ * It picks the same position COUNT_RANGE(1, 0, 0, 256) used to, and checks the biome there, which is the same biome
+ * the feature looks its generators up by, so the check is one lookup against the current snapshot. After a reload,
+ * chunks start or stop getting the feature right away, without touching the biomes' feature lists, which worldgen
+ * threads may be iterating at the time.
+ * 
+ * <p>It also schedules the feature if ore from a neighbor's vein is waiting to be placed in the chunk.
+ */
+public class OreBiomeDecorator extends Decorator<NopeDecoratorConfig> {
+	public static final OreBiomeDecorator COTTON_ORE_BIOME = Registry.register(Registry.DECORATOR, "cotton:ore_biome", new OreBiomeDecorator());
+	
+	public OreBiomeDecorator() {
+		super(NopeDecoratorConfig::deserialize);
+	}
+	
+	@Override
+	public Stream<BlockPos> getPositions(IWorld world, ChunkGenerator<? extends ChunkGeneratorConfig> generator, Random random, NopeDecoratorConfig config, BlockPos pos) {
+		int x = random.nextInt(16);
+		int y = random.nextInt(256);
+		int z = random.nextInt(16);
+		BlockPos target = pos.add(x, y, z);
+		
+		Biome biome = world.getChunk(target).getBiome(target); //The same lookup CottonOreFeature does
+		if (!OregenResourceListener.getSnapshot().generators.canGenerateIn(biome)) {
+			//Still run if a neighbor's vein spilled into this chunk, so the spill gets placed. If nothing has, the chunk
+			//is marked as drained, so nothing more is deferred to it.
+			SpillStore spills = SpillStore.get(world);
+			if (spills==null || spills.drainIfEmpty(new ChunkPos(pos))) return Stream.empty();
+		}
+		
+		return Stream.of(target);
+	}
+}
@@ -4,7 +4,9 @@ import net.minecraft.block.BlockState;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.registry.Registry;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableSet;
@@ -18,12 +20,18 @@ import io.github.cottonmc.resources.CottonResources;
 
 public class OreGenerationSettings {
 	public Set<BlockState> ores = new HashSet<>();
+	/** Relative chance of picking each ore state. States without an entry have a weight of 1. */
+	public Map<BlockState, Float> ore_weights = new HashMap<>();
 	public int min_height = 6;
 	public int max_height = 64;
+	public HeightDistribution height_distribution = HeightDistribution.UNIFORM;
 	public DimensionSpec dimensions = new DimensionSpec();
 	public BiomeSpec biomes = new BiomeSpec();
 	public int cluster_count = 8;
+	/** If this is more than cluster_count, each chunk gets anywhere from cluster_count to this many clusters instead */
+	public int max_cluster_count = 0;
 	public int cluster_size = 8;
+	public VeinShape vein_shape = VeinShape.SPHERE;
 	
 	public OreGenerationSettings() {
 	}
@@ -40,18 +48,30 @@ public class OreGenerationSettings {
 		this.max_height = max_height;
 		return this;
 	}
+	public OreGenerationSettings withHeightDistribution(HeightDistribution height_distribution) {
+		this.height_distribution = height_distribution;
+		return this;
+	}
 	public OreGenerationSettings excludeDimension(String dimension) {
-		this.biomes.deny.add(new Identifier(dimension));
+		this.biomes.deny(dimension);
 		return this;
 	}
 	public OreGenerationSettings withClusterCount(int cluster_count) {
 		this.cluster_count = cluster_count;
 		return this;
 	}
+	public OreGenerationSettings withMaxClusterCount(int max_cluster_count) {
+		this.max_cluster_count = max_cluster_count;
+		return this;
+	}
 	public OreGenerationSettings withClusterSize(int cluster_size) {
 		this.cluster_size = cluster_size;
 		return this;
 	}
+	public OreGenerationSettings withVeinShape(VeinShape vein_shape) {
+		this.vein_shape = vein_shape;
+		return this;
+	}
 
 	public static OreGenerationSettings getDefault() {
 		OreGenerationSettings settings = new OreGenerationSettings();
@@ -64,13 +84,20 @@ public class OreGenerationSettings {
 	public static OreGenerationSettings deserialize(JsonObject obj) {
 		OreGenerationSettings result = new OreGenerationSettings();
 		JsonElement blockElem = obj.get("ore_block");
-		result.ores.addAll(deserializeBlockState(blockElem));
+		deserializeWeightedStates(blockElem, 1f, result);
 		
 		result.min_height = getIntOrDefault(obj, "min_height", result.min_height);
 		result.max_height = getIntOrDefault(obj, "max_height", result.max_height);
 		result.cluster_count = getIntOrDefault(obj, "cluster_count", result.cluster_count);
+		result.max_cluster_count = getIntOrDefault(obj, "max_cluster_count", result.max_cluster_count);
 		result.cluster_size = getIntOrDefault(obj, "cluster_size", result.cluster_size);
 		
+		JsonElement heightElem = obj.get("height_distribution");
+		if (heightElem!=null) result.height_distribution = HeightDistribution.deserialize(heightElem);
+		
+		JsonElement shapeElem = obj.get("vein_shape");
+		if (shapeElem!=null) result.vein_shape = VeinShape.deserialize(shapeElem);
+		
 		JsonElement dimensionsElem = obj.get("dimensions");
 		if (dimensionsElem!=null) result.dimensions = DimensionSpec.deserialize(dimensionsElem);
 		
@@ -80,6 +107,27 @@ public class OreGenerationSettings {
 		return result;
 	}
 	
+	/**
+	 * Reads an ore_block spec into the settings' ores and ore_weights. Anything deserializeBlockState accepts is allowed,
+	 * plus { "block": ..., "weight": 3 } to weight everything that "block" names. Weights of a state named more than once
+	 * are added together.
+	 */
+	public static void deserializeWeightedStates(JsonElement elem, float weight, OreGenerationSettings result) {
+		if (elem instanceof JsonArray) {
+			for(JsonElement e : (JsonArray)elem) {
+				deserializeWeightedStates(e, weight, result);
+			}
+		} else if (elem instanceof JsonObject && ((JsonObject) elem).containsKey("weight")) {
+			Float w = ((JsonObject) elem).get(Float.class, "weight");
+			deserializeWeightedStates(((JsonObject) elem).get("block"), (w==null) ? 1f : w, result);
+		} else {
+			for(BlockState state : deserializeBlockState(elem)) {
+				result.ores.add(state);
+				result.ore_weights.merge(state, weight, Float::sum);
+			}
+		}
+	}
+	
 	public static Set<BlockState> deserializeBlockState(JsonElement elem) {
 		if (elem==null) return ImmutableSet.of();
 		
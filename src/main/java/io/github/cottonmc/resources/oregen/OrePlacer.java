@@ -0,0 +1,142 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.chunk.ProtoChunk;
+
+/**
+ * Reads and writes blocks for one CottonOreFeature pass. While a chunk is still generating, it's a ProtoChunk that
+ * nobody is watching, so instead of going through the IWorld (with its neighbor updates and client-notify flags) for
+ * every ore block, reads go straight to the chunk's sections and writes go straight to the chunk, which still keeps
+ * its heightmaps and light sources up to date. Anything outside the chunk, or any chunk that's already live, uses the
+ * normal IWorld path.
+ * 
+ * <p>Placements that spill over into a neighboring chunk go through {@link #spill(int, int, int, Block, BlockState)}:
+ * if the neighbor has already been decorated they're placed right away, and otherwise they wait in a
+ * {@link SpillStore} until it is. Neighbors are never loaded just to place ore in them, and never written into before
+ * their own features have run.
+ * 
+ * <p>The world may be null if the chunk is a ProtoChunk; then anything outside of it is treated as air, and spills are
+ * lost.
+ */
+public class OrePlacer {
+	private static final BlockState AIR = Blocks.AIR.getDefaultState();
+	public static final int ALL_SECTIONS = 0xFFFF;
+
+	private final IWorld world;
+	private final Chunk chunk;
+	/** Where to defer placements into undecorated neighbors, or null to place them right away */
+	private final SpillStore spills;
+	/** The chunk again if it's safe to write into directly, otherwise null */
+	private final Chunk protoChunk;
+	private final ChunkSection[] sections;
+	private final int startX;
+	private final int startZ;
+	private final BlockPos.Mutable pos = new BlockPos.Mutable();
+	/** For each kind of host that's been asked about, which of this chunk's sections might contain it */
+	private final ConcurrentHashMap<Object, Integer> hostSections = new ConcurrentHashMap<>();
+
+	public OrePlacer(IWorld world, Chunk chunk) {
+		this(world, chunk, null);
+	}
+
+	public OrePlacer(IWorld world, Chunk chunk, SpillStore spills) {
+		this.world = world;
+		this.chunk = chunk;
+		this.spills = spills;
+		this.protoChunk = (chunk instanceof ProtoChunk) ? chunk : null;
+		this.sections = (protoChunk!=null) ? protoChunk.getSectionArray() : null;
+		this.startX = chunk.getPos().getStartX();
+		this.startZ = chunk.getPos().getStartZ();
+	}
+
+	public IWorld getWorld() {
+		return world;
+	}
+
+	/** Gets the chunk this feature pass is generating into */
+	public Chunk getChunk() {
+		return chunk;
+	}
+
+	public int getStartX() {
+		return startX;
+	}
+
+	public int getStartZ() {
+		return startZ;
+	}
+
+	public BlockState getBlockState(int x, int y, int z) {
+		if (isDirect(x, z)) {
+			if (y<0 || y>255) return AIR;
+			ChunkSection section = sections[y >> 4];
+			if (section==null || section.isEmpty()) return AIR;
+			return section.getBlockState(x & 15, y & 15, z & 15);
+		}
+
+		if (world==null) return AIR;
+		return world.getBlockState(pos.set(x, y, z));
+	}
+
+	public void setBlockState(int x, int y, int z, BlockState state) {
+		if (isDirect(x, z)) {
+			if (y<0 || y>255) return;
+			protoChunk.setBlockState(pos.set(x, y, z), state, false);
+		} else {
+			world.setBlockState(new BlockPos(x, y, z), state, 3);
+		}
+	}
+
+	/**
+	 * Returns a bitmask of which of this chunk's sections (bit 0 is y=0-15) could contain a block matching host. Only
+	 * section palettes are checked, not blocks, and the result is remembered for this feature pass under key, so this
+	 * is cheap to ask once per generator. Palettes can hold stale entries, so a set bit only means "maybe", but a clear
+	 * bit means the section definitely has nothing that matches. Without direct access to the chunk, every bit is set.
+	 */
+	public int getSectionsWith(Object key, Predicate<BlockState> host) {
+		if (sections==null) return ALL_SECTIONS;
+		Integer result = hostSections.get(key);
+		if (result!=null) return result;
+		
+		int mask = 0;
+		for(int i=0; i<sections.length; i++) {
+			ChunkSection section = sections[i];
+			if (section==null || section.isEmpty()) continue;
+			if (section.method_19523(host)) mask |= 1 << i;
+		}
+		hostSections.put(key, mask);
+		return mask;
+	}
+
+	/**
+	 * Places ore into a neighboring chunk, if the block there is still host. If the neighbor hasn't had its features
+	 * generated yet, the placement is deferred until it does. Returns false if the placement was lost instead: the
+	 * neighbor isn't loaded, so there's no telling whether it's been decorated, or it couldn't be deferred.
+	 */
+	public boolean spill(int x, int y, int z, Block host, BlockState state) {
+		if (world==null || y<0 || y>255) return false;
+		
+		Chunk neighbor = world.getChunk(x >> 4, z >> 4, ChunkStatus.EMPTY, false);
+		if (neighbor==null) return false;
+		if (!neighbor.getStatus().isAtLeast(ChunkStatus.FEATURES)) return spills!=null && spills.defer(x, y, z, host, state);
+		
+		if (spills!=null) spills.expire(neighbor.getPos()); //Anything still waiting for it never will be placed
+		pos.set(x, y, z);
+		if (world.getBlockState(pos).getBlock()==host) world.setBlockState(pos, state, 3);
+		return true;
+	}
+
+	private boolean isDirect(int x, int z) {
+		return protoChunk!=null && ((x-startX) & ~15)==0 && ((z-startZ) & ~15)==0;
+	}
+}
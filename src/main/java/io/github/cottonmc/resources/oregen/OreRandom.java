@@ -0,0 +1,65 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Random;
+
+/**
+ * A SplitMix64 generator behind the java.util.Random interface, so it can be handed to anything that takes a Random.
+ * It's fast to reseed, and nearby seeds give unrelated streams, which is what lets every (chunk, resource) pair have its
+ * own stream that doesn't depend on what else is being generated.
+ * 
+ * <p>Not thread-safe, unlike Random; keep one per thread.
+ */
+public class OreRandom extends Random {
+	private static final long serialVersionUID = 1L;
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	
+	private long state; //No initializer: Random's constructor calls setSeed before our fields would be initialized
+	
+	public OreRandom() {
+		super(0L);
+	}
+	
+	public OreRandom(long seed) {
+		super(seed);
+	}
+	
+	@Override
+	public void setSeed(long seed) {
+		super.setSeed(seed); //Clears the cached nextGaussian
+		this.state = seed;
+	}
+	
+	@Override
+	protected int next(int bits) {
+		return (int)(nextLong() >>> (64-bits));
+	}
+	
+	@Override
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix64(state);
+	}
+	
+	/** The SplitMix64 finalizer. Spreads every bit of the input across the whole output. */
+	public static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/** A stable 64-bit hash of a resource name, so the same name always gets the same stream */
+	public static long hash(String s) {
+		long result = 0xCBF29CE484222325L; //FNV-1a, with a SplitMix finish so short names still spread out
+		for(int i=0; i<s.length(); i++) {
+			result ^= s.charAt(i);
+			result *= 0x100000001B3L;
+		}
+		return mix64(result);
+	}
+	
+	/** Gets the seed for one resource's stream in one chunk */
+	public static long seedFor(long worldSeed, int chunkX, int chunkZ, long resourceHash) {
+		long chunk = mix64(((long)chunkX << 32) ^ (chunkZ & 0xFFFFFFFFL));
+		return mix64(worldSeed ^ mix64(chunk + resourceHash));
+	}
+}
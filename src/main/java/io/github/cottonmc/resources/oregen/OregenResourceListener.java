@@ -6,55 +6,104 @@ import blue.endless.jankson.impl.SyntaxError;
 import io.github.cottonmc.jankson.JanksonFactory;
 import io.github.cottonmc.resources.CottonResources;
 import io.github.cottonmc.resources.compat.REISafeCompat;
-import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import io.github.cottonmc.resources.config.CottonResourcesConfig;
+import io.github.cottonmc.resources.tag.WorldTagReloadListener;
+import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
+import net.fabricmc.fabric.api.resource.ResourceReloadListenerKeys;
+import net.minecraft.resource.Resource;
 import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceReloadListener;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.profiler.Profiler;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class OregenResourceListener implements SimpleSynchronousResourceReloadListener{
-	protected static final OreVoteConfig jsonConfig = new OreVoteConfig();
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Reloads oregen in two phases: every oregen file is read and parsed in parallel on the reload's background executor,
+ * and then the apply phase merges the parsed configs, in resource order, builds the snapshot, and publishes it.
+ * 
+ * <p>Reload listeners apply one after another in dependency order, so applying after the block, biome and dimension
+ * tags means the snapshot is built against the tags from the same reload, and worldgen never has to build one itself.
+ */
+public class OregenResourceListener implements IdentifiableResourceReloadListener {
+	/** The currently published oregen state. Reloads build a whole new snapshot and swap it in. */
+	private static final AtomicReference<OregenSnapshot> snapshot = new AtomicReference<>(OregenSnapshot.build(new OreVoteConfig()));
+	/** Parsed oregen files from earlier reloads, so files that haven't changed don't have to be parsed again */
+	private static final ConcurrentHashMap<Identifier, CachedFile> fileCache = new ConcurrentHashMap<>();
 	
 	@Override
-	public void apply(ResourceManager resourceManager) {
-		jsonConfig.generators.clear();
-		jsonConfig.ores.clear();
-		jsonConfig.replacements.clear();
-		
-		Jankson jankson = JanksonFactory.builder().build();
-		
-		Collection<Identifier> identifiers = resourceManager.findResources("oregen", (rsrc) -> rsrc.endsWith(".json") || rsrc.endsWith(".json5"));
-		
-		for (Identifier id : identifiers) {
+	public CompletableFuture<Void> reload(ResourceReloadListener.Synchronizer synchronizer, ResourceManager resourceManager, Profiler prepareProfiler, Profiler applyProfiler, Executor prepareExecutor, Executor applyExecutor) {
+		return CompletableFuture.supplyAsync(()->resourceManager.findResources("oregen", (rsrc) -> rsrc.endsWith(".json") || rsrc.endsWith(".json5")), prepareExecutor)
+				.thenCompose((identifiers)->{
+					fileCache.keySet().retainAll(identifiers); //Forget files that aren't there anymore
+					
+					AtomicInteger unchanged = new AtomicInteger();
+					List<CompletableFuture<OreVoteConfig>> files = new ArrayList<>();
+					for(Identifier id : identifiers) {
+						files.add(CompletableFuture.supplyAsync(()->load(resourceManager, id, unchanged), prepareExecutor));
+					}
+					return CompletableFuture.allOf(files.toArray(new CompletableFuture[files.size()])).thenApply((it)->{
+						List<OreVoteConfig> result = new ArrayList<>();
+						for(CompletableFuture<OreVoteConfig> file : files) {
+							OreVoteConfig config = file.join();
+							if (config!=null) result.add(config);
+						}
+						CottonResources.LOGGER.info("Loaded {} oregen files, {} unchanged since the last reload", files.size(), unchanged.get());
+						return result;
+					});
+				})
+				.thenCompose(synchronizer::whenPrepared)
+				.thenAcceptAsync(this::apply, applyExecutor);
+	}
+	
+	/**
+	 * Reads and parses one oregen file, or reuses the config parsed last time if the file's contents are identical.
+	 * Returns null if it couldn't be read.
+	 */
+	protected static OreVoteConfig load(ResourceManager resourceManager, Identifier id, AtomicInteger unchanged) {
+		try (Resource resource = resourceManager.getResource(id)) {
+			byte[] data = ByteStreams.toByteArray(resource.getInputStream());
+			HashCode hash = Hashing.murmur3_128().hashBytes(data);
 			
-			try {
-				JsonObject configObject = jankson.load(resourceManager.getResource(id).getInputStream());
-				OreVoteConfig configLocal = OreVoteConfig.deserialize(configObject);
-				//Fold this config into the globally resolved one
-				jsonConfig.ores.addAll(configLocal.ores);
-				jsonConfig.generators.putAll(configLocal.generators);
-				for(Map.Entry<String, HashMap<String, String>> entry : configLocal.replacements.entrySet()) {
-					String resourceName = entry.getKey();
-					HashMap<String, String> newReplacers = entry.getValue();
-					HashMap<String, String> oldReplacers = jsonConfig.replacements.computeIfAbsent(resourceName, (it)->new HashMap<>());
-					oldReplacers.putAll(newReplacers);
-				}
-				
-				
-			} catch (IOException ex) {
-				CottonResources.LOGGER.error(ex.getMessage(), ex);
-			} catch (SyntaxError ex) {
-				CottonResources.LOGGER.error(ex.getCompleteMessage());
+			CachedFile cached = fileCache.get(id);
+			if (cached!=null && cached.hash.equals(hash)) {
+				unchanged.incrementAndGet();
+				return cached.config;
 			}
+			
+			Jankson jankson = JanksonFactory.builder().build();
+			JsonObject configObject = jankson.load(new ByteArrayInputStream(data));
+			OreVoteConfig config = OreVoteConfig.deserialize(configObject);
+			fileCache.put(id, new CachedFile(hash, config));
+			return config;
+		} catch (IOException ex) {
+			CottonResources.LOGGER.error(ex.getMessage(), ex);
+		} catch (SyntaxError ex) {
+			CottonResources.LOGGER.error(ex.getCompleteMessage());
 		}
+		return null;
+	}
+	
+	protected void apply(List<OreVoteConfig> parsed) {
+		OreVoteConfig jsonConfig = merge(parsed, CottonResources.CONFIG);
 		
-		//Config overrides all this, so clobber anything that exists with the config:
-		jsonConfig.generators.putAll(CottonResources.CONFIG.generators);
-		jsonConfig.ores.addAll(CottonResources.CONFIG.enabledResources);
-		jsonConfig.ores.removeAll(CottonResources.CONFIG.disabledResources);
+		snapshot.set(OregenSnapshot.build(jsonConfig));
 		
 		CottonResources.LOGGER.info("Final set of generator keys available: {}", jsonConfig.generators.keySet());
 		CottonResources.LOGGER.info("Enabled generators: {}", jsonConfig.ores);
@@ -69,12 +118,67 @@ public class OregenResourceListener implements SimpleSynchronousResourceReloadLi
 		REISafeCompat.doObjectHiding.run();
 	}
 
+	/**
+	 * Folds parsed oregen files, in resource order, into the one config worldgen uses: the built-in vanilla generators
+	 * first, then each file, then the mod config on top of all of them.
+	 */
+	public static OreVoteConfig merge(List<OreVoteConfig> parsed, CottonResourcesConfig config) {
+		OreVoteConfig jsonConfig = new OreVoteConfig();
+		VanillaOres.addTo(jsonConfig, config); //Goes first, so datapacks can replace the built-in generators
+		
+		for (OreVoteConfig configLocal : parsed) {
+			//Fold this config into the globally resolved one
+			jsonConfig.ores.addAll(configLocal.ores);
+			jsonConfig.generators.putAll(configLocal.generators);
+			for(Map.Entry<String, HashMap<String, String>> entry : configLocal.replacements.entrySet()) {
+				String resourceName = entry.getKey();
+				HashMap<String, String> newReplacers = entry.getValue();
+				HashMap<String, String> oldReplacers = jsonConfig.replacements.computeIfAbsent(resourceName, (it)->new HashMap<>());
+				oldReplacers.putAll(newReplacers);
+			}
+		}
+		
+		//Config overrides all this, so clobber anything that exists with the config:
+		jsonConfig.generators.putAll(config.generators);
+		jsonConfig.ores.addAll(config.enabledResources);
+		jsonConfig.ores.removeAll(config.disabledResources);
+		return jsonConfig;
+	}
+	
+	/**
+	 * One parsed oregen file. Parsed configs are only ever read after this point, and they don't depend on any tags
+	 * until they're tested, so they can be shared between reloads.
+	 */
+	private static class CachedFile {
+		private final HashCode hash;
+		private final OreVoteConfig config;
+		
+		private CachedFile(HashCode hash, OreVoteConfig config) {
+			this.hash = hash;
+			this.config = config;
+		}
+	}
+	
 	@Override
 	public Identifier getFabricId() {
 		return new Identifier(CottonResources.MODID, "ore_voting");
 	}
 	
+	@Override
+	public Collection<Identifier> getFabricDependencies() {
+		return Arrays.asList(ResourceReloadListenerKeys.TAGS, WorldTagReloadListener.ID);
+	}
+	
+	/** Gets the merged config from the current snapshot. Treat it as read-only. */
 	public static OreVoteConfig getConfig() {
-		return jsonConfig;
+		return snapshot.get().config;
+	}
+	
+	/**
+	 * Gets the current oregen snapshot. This never builds anything: snapshots are only built in the apply phase of a
+	 * reload, after the tags they're resolved against.
+	 */
+	public static OregenSnapshot getSnapshot() {
+		return snapshot.get();
 	}
 }
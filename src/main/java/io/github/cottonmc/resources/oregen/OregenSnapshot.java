@@ -0,0 +1,60 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.github.cottonmc.resources.tag.BiomeTags;
+import io.github.cottonmc.resources.tag.DimensionTypeTags;
+import net.minecraft.block.Block;
+import net.minecraft.tag.BlockTags;
+import net.minecraft.tag.TagContainer;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.dimension.DimensionType;
+
+/**
+ * Everything worldgen needs from one oregen reload, fully resolved. Snapshots are never modified once they're
+ * published, so worldgen threads can grab one per chunk and use it without locking while the next reload builds its
+ * replacement off to the side.
+ * 
+ * <p>A snapshot is resolved against whichever block, biome and dimension tags were current when it was built, and
+ * compiling one (vein shapes especially) isn't cheap, so build them off the worldgen path: OregenResourceListener does
+ * it in its reload apply phase, after the tags.
+ */
+public final class OregenSnapshot {
+	/** The merged config this snapshot was built from. Treat it as read-only. */
+	public final OreVoteConfig config;
+	/** The block tags that the replacement tables were resolved against */
+	public final TagContainer<Block> blockTags;
+	/** The biome and dimension tags that the generator index was built against */
+	public final TagContainer<Biome> biomeTags;
+	public final TagContainer<DimensionType> dimensionTags;
+	public final Map<String, ReplacementTable> replacements;
+	public final GeneratorIndex generators;
+	
+	private OregenSnapshot(OreVoteConfig config, TagContainer<Block> blockTags, TagContainer<Biome> biomeTags, TagContainer<DimensionType> dimensionTags, Map<String, ReplacementTable> replacements, GeneratorIndex generators) {
+		this.config = config;
+		this.blockTags = blockTags;
+		this.biomeTags = biomeTags;
+		this.dimensionTags = dimensionTags;
+		this.replacements = replacements;
+		this.generators = generators;
+	}
+	
+	/** Builds a snapshot from a config, using the current tags. The config must not be modified afterwards. */
+	public static OregenSnapshot build(OreVoteConfig config) {
+		//Grab the containers once, so everything in the snapshot is resolved against the same ones
+		TagContainer<Block> blockTags = BlockTags.getContainer();
+		TagContainer<Biome> biomeTags = BiomeTags.getContainer();
+		TagContainer<DimensionType> dimensionTags = DimensionTypeTags.getContainer();
+		
+		ImmutableMap.Builder<String, ReplacementTable> tables = ImmutableMap.builder();
+		for(Map.Entry<String, HashMap<String, String>> entry : config.replacements.entrySet()) {
+			tables.put(entry.getKey(), ReplacementTable.compile(entry.getValue(), blockTags));
+		}
+		ImmutableMap<String, ReplacementTable> replacements = tables.build();
+		
+		return new OregenSnapshot(config, blockTags, biomeTags, dimensionTags, replacements, GeneratorIndex.build(config, replacements));
+	}
+}
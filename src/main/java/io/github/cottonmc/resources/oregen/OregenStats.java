@@ -0,0 +1,144 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on counters for what each resource's generator has been doing. Worldgen tallies a generator's work locally
+ * and then adds it to striped LongAdders once per chunk, so the counters stay cheap even with many worldgen threads.
+ * They're merged whenever somebody reads them.
+ */
+public class OregenStats {
+	private static final ConcurrentHashMap<String, ResourceStats> STATS = new ConcurrentHashMap<>();
+
+	/** Gets (or starts) the counters for a resource */
+	public static ResourceStats get(String resource) {
+		return STATS.computeIfAbsent(resource, ResourceStats::new);
+	}
+
+	/** Gets a sorted copy of every resource's counters as they are right now */
+	public static Map<String, Snapshot> snapshot() {
+		TreeMap<String, Snapshot> result = new TreeMap<>();
+		for(ResourceStats stats : STATS.values()) {
+			result.put(stats.resource, stats.snapshot());
+		}
+		return result;
+	}
+
+	public static void reset() {
+		for(ResourceStats stats : STATS.values()) {
+			stats.reset();
+		}
+	}
+
+	public static class ResourceStats {
+		public final String resource;
+		private final LongAdder chunks = new LongAdder();
+		private final LongAdder clusters = new LongAdder();
+		private final LongAdder placed = new LongAdder();
+		private final LongAdder rejectedByHost = new LongAdder();
+		private final LongAdder rejectedByReplacement = new LongAdder();
+		private final LongAdder rejectedByClaim = new LongAdder();
+		private final LongAdder outsideWorld = new LongAdder();
+		private final LongAdder lostToConflict = new LongAdder();
+		private final LongAdder lostSpills = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		public ResourceStats(String resource) {
+			this.resource = resource;
+		}
+
+		/** Records one chunk's worth of work */
+		public void record(Tally tally, long elapsedNanos) {
+			chunks.increment();
+			clusters.add(tally.clusters);
+			placed.add(tally.placed);
+			rejectedByHost.add(tally.rejectedByHost);
+			rejectedByReplacement.add(tally.rejectedByReplacement);
+			rejectedByClaim.add(tally.rejectedByClaim);
+			outsideWorld.add(tally.outsideWorld);
+			lostToConflict.add(tally.lostToConflict);
+			lostSpills.add(tally.lostSpills);
+			nanos.add(elapsedNanos);
+		}
+
+		public Snapshot snapshot() {
+			return new Snapshot(chunks.sum(), clusters.sum(), placed.sum(), rejectedByHost.sum(), rejectedByReplacement.sum(), rejectedByClaim.sum(), outsideWorld.sum(), lostToConflict.sum(), lostSpills.sum(), nanos.sum());
+		}
+
+		public void reset() {
+			chunks.reset();
+			clusters.reset();
+			placed.reset();
+			rejectedByHost.reset();
+			rejectedByReplacement.reset();
+			rejectedByClaim.reset();
+			outsideWorld.reset();
+			lostToConflict.reset();
+			lostSpills.reset();
+			nanos.reset();
+		}
+	}
+
+	/**
+	 * One generator's work in one chunk, counted locally before being folded into a ResourceStats. Every candidate
+	 * position ends up either placed or in exactly one of the rejected or lost counters.
+	 */
+	public static class Tally {
+		public int clusters;
+		public int candidates;
+		public int placed;
+		/** Not natural stone, for a resource without replacement rules */
+		public int rejectedByHost;
+		/** Not a host in any of the resource's replacement rules */
+		public int rejectedByReplacement;
+		/** Already planned by an earlier cluster of the same resource */
+		public int rejectedByClaim;
+		/** Above or below the world */
+		public int outsideWorld;
+		/** Planned, but another resource earlier in the run order planned the same position */
+		public int lostToConflict;
+		/** Planned in a neighboring chunk, but it couldn't be placed there or deferred until it could */
+		public int lostSpills;
+
+		public void reset() {
+			clusters = 0;
+			candidates = 0;
+			placed = 0;
+			rejectedByHost = 0;
+			rejectedByReplacement = 0;
+			rejectedByClaim = 0;
+			outsideWorld = 0;
+			lostToConflict = 0;
+			lostSpills = 0;
+		}
+	}
+
+	public static class Snapshot {
+		public final long chunks;
+		public final long clusters;
+		public final long placed;
+		public final long rejectedByHost;
+		public final long rejectedByReplacement;
+		public final long rejectedByClaim;
+		public final long outsideWorld;
+		public final long lostToConflict;
+		public final long lostSpills;
+		public final long nanos;
+
+		public Snapshot(long chunks, long clusters, long placed, long rejectedByHost, long rejectedByReplacement, long rejectedByClaim, long outsideWorld, long lostToConflict, long lostSpills, long nanos) {
+			this.chunks = chunks;
+			this.clusters = clusters;
+			this.placed = placed;
+			this.rejectedByHost = rejectedByHost;
+			this.rejectedByReplacement = rejectedByReplacement;
+			this.rejectedByClaim = rejectedByClaim;
+			this.outsideWorld = outsideWorld;
+			this.lostToConflict = lostToConflict;
+			this.lostSpills = lostSpills;
+			this.nanos = nanos;
+		}
+	}
+}
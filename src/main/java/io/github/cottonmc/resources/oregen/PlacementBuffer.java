@@ -0,0 +1,140 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.registry.Registry;
+
+/**
+ * Every ore placement planned for one chunk, packed into a long[] so that planning allocates nothing per block. Once
+ * planning is done, {@link #apply(OrePlacer, OregenStats.Tally[])} sorts the placements by section and position and writes each
+ * position once, walking the chunk in storage order instead of jumping around it cluster by cluster.
+ * 
+ * <p>Each entry is, from the top bit down: position in the chunk (y, z, x; 16 bits), resource index (12 bits),
+ * candidate sequence number within that resource (20 bits), and index into this buffer's state palette (16 bits). The
+ * sign bit is flipped, so that plain signed sorting puts entries in section order. If two resources planned the same
+ * position, the one with the lowest resource index wins, which doesn't depend on what order they were planned in.
+ * 
+ * <p>Placements outside the chunk can't be packed like this; they're kept separately, along with the block they were
+ * planned against, and spilled into the neighboring chunks afterwards, in the order they were planned.
+ */
+public class PlacementBuffer {
+	public static final int MAX_RESOURCES = 1 << 12;
+	public static final int MAX_SEQUENCE = (1 << 20) - 1;
+	public static final int MAX_STATES = 1 << 16;
+	
+	private long[] entries = new long[1024];
+	private int size = 0;
+	/** x, y, z, resource, host block raw id and state index for each placement outside the chunk */
+	private int[] outside = new int[0];
+	private int outsideSize = 0;
+	
+	private final ArrayList<BlockState> palette = new ArrayList<>();
+	private final IdentityHashMap<BlockState, Integer> paletteIndex = new IdentityHashMap<>();
+	
+	public int size() {
+		return size + outsideSize;
+	}
+	
+	public void clear() {
+		size = 0;
+		outsideSize = 0;
+		palette.clear();
+		paletteIndex.clear();
+	}
+	
+	/**
+	 * Plans a placement. x, y and z are relative to the chunk's start; y must already be in the world. sequence should
+	 * count up within each resource, so that conflicts within a resource are settled in planning order too. host is the
+	 * block that was there when it was planned, which only matters if the placement is outside the chunk.
+	 */
+	public void add(int x, int y, int z, int resource, int sequence, Block host, BlockState state) {
+		int stateIndex = indexOf(state);
+		if ((x & ~15)==0 && (z & ~15)==0) {
+			if (size==entries.length) entries = Arrays.copyOf(entries, size*2);
+			long position = (y << 8) | (z << 4) | x;
+			entries[size++] = ((position << 48) | ((long)resource << 36) | ((long)Math.min(sequence, MAX_SEQUENCE) << 16) | stateIndex) ^ Long.MIN_VALUE;
+		} else {
+			if (outsideSize+6>outside.length) outside = Arrays.copyOf(outside, Math.max(24, outside.length*2));
+			outside[outsideSize++] = x;
+			outside[outsideSize++] = y;
+			outside[outsideSize++] = z;
+			outside[outsideSize++] = resource;
+			outside[outsideSize++] = Registry.BLOCK.getRawId(host);
+			outside[outsideSize++] = stateIndex;
+		}
+	}
+	
+	/** Moves every placement from another buffer into this one. Used to merge buffers planned on different threads. */
+	public void addAll(PlacementBuffer other) {
+		for(int i=0; i<other.size; i++) {
+			long entry = other.entries[i] ^ Long.MIN_VALUE;
+			BlockState state = other.palette.get((int)(entry & 0xFFFF));
+			if (size==entries.length) entries = Arrays.copyOf(entries, size*2);
+			entries[size++] = ((entry & ~0xFFFFL) | indexOf(state)) ^ Long.MIN_VALUE;
+		}
+		for(int i=0; i<other.outsideSize; i+=6) {
+			BlockState state = other.palette.get(other.outside[i+5]);
+			add(other.outside[i], other.outside[i+1], other.outside[i+2], other.outside[i+3], 0, Registry.BLOCK.get(other.outside[i+4]), state);
+		}
+		other.clear();
+	}
+	
+	private int indexOf(BlockState state) {
+		Integer index = paletteIndex.get(state);
+		if (index!=null) return index;
+		if (palette.size()>=MAX_STATES) throw new IllegalStateException("Too many different ore states in one chunk");
+		
+		int result = palette.size();
+		palette.add(state);
+		paletteIndex.put(state, result);
+		return result;
+	}
+	
+	/**
+	 * Writes the planned placements into the chunk, and clears the buffer. If tallies isn't null, every placement that
+	 * lost a conflict to another resource is moved from that resource's placed count to its lostToConflict count, and
+	 * every spill the placer couldn't place or defer to its lostSpills count, so that placed counts what actually ended
+	 * up in the world.
+	 */
+	public void apply(OrePlacer placer, OregenStats.Tally[] tallies) {
+		Arrays.sort(entries, 0, size);
+		int startX = placer.getStartX();
+		int startZ = placer.getStartZ();
+		
+		long lastPosition = -1;
+		for(int i=0; i<size; i++) {
+			long entry = entries[i] ^ Long.MIN_VALUE;
+			long position = entry >>> 48;
+			if (position==lastPosition) {
+				//Somebody earlier in the sort order already took this spot
+				if (tallies!=null) {
+					OregenStats.Tally tally = tallies[(int)((entry >>> 36) & 0xFFF)];
+					tally.placed--;
+					tally.lostToConflict++;
+				}
+				continue;
+			}
+			lastPosition = position;
+			
+			int x = (int)(position & 15);
+			int z = (int)((position >> 4) & 15);
+			int y = (int)(position >> 8);
+			placer.setBlockState(startX+x, y, startZ+z, palette.get((int)(entry & 0xFFFF)));
+		}
+		
+		for(int i=0; i<outsideSize; i+=6) {
+			boolean spilled = placer.spill(startX+outside[i], outside[i+1], startZ+outside[i+2], Registry.BLOCK.get(outside[i+4]), palette.get(outside[i+5]));
+			if (!spilled && tallies!=null) {
+				OregenStats.Tally tally = tallies[outside[i+3]];
+				tally.placed--;
+				tally.lostSpills++;
+			}
+		}
+		
+		clear();
+	}
+}
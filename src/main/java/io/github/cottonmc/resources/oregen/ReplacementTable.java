@@ -0,0 +1,82 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.tag.Tag;
+import net.minecraft.tag.TagContainer;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
+
+/**
+ * The replacement specs for one resource, resolved down to "host Block -> possible ore states" so that ore placement
+ * never has to parse an Identifier or ask a Tag anything.
+ */
+public class ReplacementTable {
+	private final IdentityHashMap<Block, BlockState[]> choices = new IdentityHashMap<>();
+
+	/** Returns the states this host block can be replaced with, or null if this block can't host the resource */
+	public BlockState[] get(Block host) {
+		return choices.get(host);
+	}
+
+	public boolean canHost(Block host) {
+		return choices.containsKey(host);
+	}
+
+	/** Picks a replacement for this host block, or returns null if this block can't host the resource */
+	public BlockState pick(Block host, Random rand) {
+		BlockState[] states = choices.get(host);
+		if (states==null) return null;
+		if (states.length==1) return states[0];
+		return states[rand.nextInt(states.length)];
+	}
+
+	public boolean isEmpty() {
+		return choices.isEmpty();
+	}
+
+	/**
+	 * Compiles a map of "host spec" -> "replacement spec" strings against the supplied block tags. Specs are applied in
+	 * iteration order, and the first spec to claim a host wins, which is the same thing the uncompiled lookup did.
+	 */
+	public static ReplacementTable compile(Map<String, String> specs, TagContainer<Block> tags) {
+		ReplacementTable result = new ReplacementTable();
+		for(Map.Entry<String, String> entry : specs.entrySet()) {
+			BlockState[] replacements = resolveStates(entry.getValue(), tags);
+			if (replacements.length==0) continue; //Nothing to place, so let later specs claim these hosts.
+
+			for(Block host : resolveBlocks(entry.getKey(), tags)) {
+				result.choices.putIfAbsent(host, replacements);
+			}
+		}
+		return result;
+	}
+
+	public static Iterable<Block> resolveBlocks(String spec, TagContainer<Block> tags) {
+		if (spec.startsWith("#")) {
+			Tag<Block> tag = tags.get(new Identifier(spec.substring(1)));
+			if (tag==null) return ImmutableList.of();
+			return tag.values();
+		} else {
+			Block b = Registry.BLOCK.get(new Identifier(spec));
+			if (b==Blocks.AIR) return ImmutableList.of();
+			return ImmutableList.of(b);
+		}
+	}
+
+	public static BlockState[] resolveStates(String spec, TagContainer<Block> tags) {
+		ArrayList<BlockState> result = new ArrayList<>();
+		for(Block b : resolveBlocks(spec, tags)) {
+			result.add(b.getDefaultState());
+		}
+		return result.toArray(new BlockState[result.size()]);
+	}
+}
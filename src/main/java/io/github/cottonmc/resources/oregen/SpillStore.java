@@ -0,0 +1,286 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.TagHelper;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.PersistentState;
+import net.minecraft.world.World;
+
+/**
+ * Ore placements that spilled over into a neighboring chunk which hasn't been decorated yet. Instead of forcing that
+ * chunk to load or writing into it before its own features have run, the placements wait here, keyed by ChunkPos,
+ * until cotton:ore runs in that chunk. Each placement remembers the block it was planned against, and only goes in if
+ * that block is still there.
+ * 
+ * <p>Memory is bounded: past {@link #MAX_PLACEMENTS} waiting placements in a dimension, or {@link #MAX_PER_CHUNK} for
+ * any one chunk, spills are refused, and the caller drops them. Pending placements are saved with the dimension's
+ * other data, so they survive a restart.
+ * 
+ * <p>A chunk counts as drained once its feature stage starts, whether or not cotton:ore has anything to generate there.
+ * Its list is swapped for a marker, so a spill racing the drain is refused instead of landing in a list nobody will
+ * read. Markers only have to last until the chunk's status shows it's past its features, so only the most recent
+ * {@link #RECENTLY_DRAINED} are kept, and none are saved: after a restart, every chunk's saved status says whether
+ * it's been decorated. Every operation only touches the one chunk's entry in a ConcurrentHashMap, so worldgen threads
+ * working on different chunks never wait on each other.
+ */
+public class SpillStore extends PersistentState {
+	public static final String KEY = "cotton_oregen_spill";
+	public static final int MAX_PLACEMENTS = 1 << 20;
+	public static final int MAX_PER_CHUNK = 16*16*256 / 4;
+	/**
+	 * How many drained chunks keep their marker. This only has to cover chunks whose feature stage is still running;
+	 * once it's finished, spills see the chunk's status instead.
+	 */
+	public static final int RECENTLY_DRAINED = 4096;
+	
+	/** Stands in for the list of a chunk that's been drained */
+	private static final Pending DRAINED = new Pending();
+	
+	/** Chunk to placements, each packed as position (16 bits), host block (16) and state (32) */
+	private final ConcurrentHashMap<ChunkPos, Pending> pending = new ConcurrentHashMap<>();
+	private final AtomicInteger total = new AtomicInteger();
+	/** The chunks whose DRAINED markers are being kept, as a ring; the oldest marker is dropped as each new one goes in */
+	private final AtomicReferenceArray<ChunkPos> drained = new AtomicReferenceArray<>(RECENTLY_DRAINED);
+	private final AtomicInteger nextDrained = new AtomicInteger();
+	
+	public SpillStore() {
+		super(KEY);
+	}
+	
+	/** Gets the spill store for a world's dimension, or null if the world isn't a server world */
+	public static SpillStore get(IWorld world) {
+		World w = world.getWorld();
+		if (!(w instanceof Holder)) return null; //Only ServerWorlds are
+		
+		Holder holder = (Holder)w;
+		SpillStore result = holder.cotton_getSpillStore();
+		if (result!=null) return result;
+		//Only the first few lookups in each world get here. The PersistentStateManager isn't thread-safe, so they
+		//still have to take turns.
+		synchronized(SpillStore.class) {
+			result = holder.cotton_getSpillStore();
+			if (result==null) {
+				result = ((ServerWorld)w).getPersistentStateManager().getOrCreate(SpillStore::new, KEY);
+				holder.cotton_setSpillStore(result);
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * Marks a chunk as drained if nothing is waiting for it, for chunks cotton:ore won't otherwise run in. Returns false
+	 * if something is waiting, in which case the feature still has to run there to drain it.
+	 */
+	public boolean drainIfEmpty(ChunkPos pos) {
+		Pending list = pending.get(pos); //Doesn't lock, and nearly every chunk it's asked about has nothing waiting
+		if (list==DRAINED) return true;
+		if (list!=null) return false;
+		list = pending.putIfAbsent(pos, DRAINED);
+		if (list==null) rememberDrained(pos);
+		return list==null || list==DRAINED;
+	}
+	
+	/**
+	 * Holds onto a placement for a chunk that hasn't been decorated yet. Returns false if it can't, because the store is
+	 * full or the chunk has already been drained.
+	 */
+	public boolean defer(int x, int y, int z, Block host, BlockState state) {
+		if (y<0 || y>255) return false;
+		int hostId = Registry.BLOCK.getRawId(host);
+		int stateId = Block.getRawIdFromState(state);
+		if (hostId<0 || hostId>0xFFFF || stateId<0) return false;
+		
+		long entry = ((long)((y << 8) | ((z & 15) << 4) | (x & 15)) << 48) | ((long)hostId << 32) | (stateId & 0xFFFFFFFFL);
+		if (total.incrementAndGet()>MAX_PLACEMENTS) {
+			total.decrementAndGet();
+			return false;
+		}
+		
+		Pending list = pending.computeIfAbsent(new ChunkPos(x >> 4, z >> 4), (it)->new Pending());
+		boolean added = false;
+		if (list!=DRAINED) {
+			synchronized(list) {
+				//A drain may have taken the list out of the map since we got it, but it closes the list when it does
+				added = !list.closed && list.add(entry);
+			}
+		}
+		if (!added) {
+			total.decrementAndGet();
+			return false;
+		}
+		markDirty();
+		return true;
+	}
+	
+	/**
+	 * Places everything waiting for this chunk, and marks it as drained so that nothing else gets deferred to it. Call
+	 * this before the chunk's own ores are generated.
+	 */
+	public void drain(ChunkPos pos, OrePlacer placer) {
+		Pending list = pending.put(pos, DRAINED);
+		if (list!=DRAINED) rememberDrained(pos);
+		if (list==null || list==DRAINED) return;
+		
+		long[] entries;
+		int size;
+		synchronized(list) {
+			list.closed = true;
+			entries = list.entries;
+			size = list.size;
+		}
+		total.addAndGet(-size);
+		markDirty();
+		
+		int startX = pos.getStartX();
+		int startZ = pos.getStartZ();
+		for(int i=0; i<size; i++) {
+			long entry = entries[i];
+			int position = (int)(entry >>> 48);
+			int x = startX + (position & 15);
+			int z = startZ + ((position >> 4) & 15);
+			int y = position >> 8;
+			Block host = Registry.BLOCK.get((int)((entry >>> 32) & 0xFFFF));
+			BlockState state = Block.getStateFromRawId((int)entry);
+			
+			if (placer.getBlockState(x, y, z).getBlock()==host) placer.setBlockState(x, y, z, state);
+		}
+	}
+	
+	/**
+	 * Drops anything still waiting for a chunk that's already past its features, and so will never drain it. That can
+	 * only be left by a spill that raced the chunk's drain after its marker was dropped, or by an older save. Chunks are
+	 * checked as they're seen, when a neighbor spills into them, instead of reading saved chunks up front.
+	 */
+	public void expire(ChunkPos pos) {
+		Pending list = pending.get(pos);
+		if (list==null || list==DRAINED || !pending.remove(pos, list)) return;
+		
+		int size;
+		synchronized(list) {
+			list.closed = true;
+			size = list.size;
+		}
+		total.addAndGet(-size);
+		markDirty();
+	}
+	
+	private void rememberDrained(ChunkPos pos) {
+		int slot = Math.floorMod(nextDrained.getAndIncrement(), RECENTLY_DRAINED);
+		ChunkPos oldest = drained.getAndSet(slot, pos);
+		if (oldest!=null) pending.remove(oldest, DRAINED);
+	}
+	
+	@Override
+	public void fromTag(CompoundTag tag) {
+		pending.clear();
+		total.set(0);
+		ListTag chunks = tag.getList("Chunks", 10);
+		for(int i=0; i<chunks.size(); i++) {
+			CompoundTag chunk = chunks.getCompoundTag(i);
+			
+			//Raw ids aren't stable between sessions, so they're saved against palettes
+			ListTag blockNames = chunk.getList("Blocks", 8);
+			Block[] blocks = new Block[blockNames.size()];
+			for(int j=0; j<blocks.length; j++) {
+				Identifier id = Identifier.tryParse(blockNames.getString(j));
+				blocks[j] = (id==null) ? null : Registry.BLOCK.getOrEmpty(id).orElse(null);
+			}
+			ListTag stateTags = chunk.getList("States", 10);
+			BlockState[] states = new BlockState[stateTags.size()];
+			for(int j=0; j<states.length; j++) {
+				states[j] = TagHelper.deserializeBlockState(stateTags.getCompoundTag(j));
+			}
+			
+			Pending list = new Pending();
+			for(long saved : chunk.getLongArray("Entries")) {
+				int blockIndex = (int)((saved >>> 32) & 0xFFFF);
+				int stateIndex = (int)saved;
+				if (blockIndex>=blocks.length || stateIndex<0 || stateIndex>=states.length || blocks[blockIndex]==null) continue;
+				list.add((saved & 0xFFFF000000000000L) | ((long)Registry.BLOCK.getRawId(blocks[blockIndex]) << 32) | (Block.getRawIdFromState(states[stateIndex]) & 0xFFFFFFFFL));
+			}
+			if (list.size==0) continue;
+			pending.put(new ChunkPos(chunk.getLong("Pos")), list);
+			total.addAndGet(list.size);
+		}
+	}
+	
+	@Override
+	public CompoundTag toTag(CompoundTag tag) {
+		ListTag chunks = new ListTag();
+		for(Map.Entry<ChunkPos, Pending> entry : pending.entrySet()) {
+			if (entry.getValue()==DRAINED) continue; //Markers aren't saved
+			long[] entries;
+			synchronized(entry.getValue()) {
+				entries = Arrays.copyOf(entry.getValue().entries, entry.getValue().size);
+			}
+			if (entries.length==0) continue;
+			
+			HashMap<Integer, Integer> blockPalette = new HashMap<>();
+			HashMap<Integer, Integer> statePalette = new HashMap<>();
+			ListTag blocks = new ListTag();
+			ListTag states = new ListTag();
+			long[] saved = new long[entries.length];
+			for(int i=0; i<entries.length; i++) {
+				int blockId = (int)((entries[i] >>> 32) & 0xFFFF);
+				int stateId = (int)entries[i];
+				Integer blockIndex = blockPalette.get(blockId);
+				if (blockIndex==null) {
+					blockIndex = blocks.size();
+					blockPalette.put(blockId, blockIndex);
+					blocks.add(new StringTag(Registry.BLOCK.getId(Registry.BLOCK.get(blockId)).toString()));
+				}
+				Integer stateIndex = statePalette.get(stateId);
+				if (stateIndex==null) {
+					stateIndex = states.size();
+					statePalette.put(stateId, stateIndex);
+					states.add(TagHelper.serializeBlockState(Block.getStateFromRawId(stateId)));
+				}
+				saved[i] = (entries[i] & 0xFFFF000000000000L) | ((long)blockIndex << 32) | stateIndex;
+			}
+			
+			CompoundTag chunk = new CompoundTag();
+			chunk.putLong("Pos", entry.getKey().toLong());
+			chunk.put("Blocks", blocks);
+			chunk.put("States", states);
+			chunk.putLongArray("Entries", saved);
+			chunks.add(chunk);
+		}
+		tag.put("Chunks", chunks);
+		return tag;
+	}
+	
+	/** Lets a SpillStore be kept on its ServerWorld, so finding it is just a field read */
+	public interface Holder {
+		SpillStore cotton_getSpillStore();
+		void cotton_setSpillStore(SpillStore store);
+	}
+	
+	private static class Pending {
+		private long[] entries = new long[16];
+		private int size = 0;
+		/** Set once the list has been taken out of the map, after which nothing more may be added to it */
+		private boolean closed = false;
+		
+		private boolean add(long entry) {
+			if (size>=MAX_PER_CHUNK) return false;
+			if (size==entries.length) entries = Arrays.copyOf(entries, size*2);
+			entries[size++] = entry;
+			return true;
+		}
+	}
+}
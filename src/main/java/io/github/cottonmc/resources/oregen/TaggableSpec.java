@@ -1,48 +1,140 @@
 package io.github.cottonmc.resources.oregen;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.function.Predicate;
 
-import com.google.common.collect.ImmutableSet;
-
 import blue.endless.jankson.JsonArray;
 import blue.endless.jankson.JsonElement;
 import blue.endless.jankson.JsonObject;
 import blue.endless.jankson.JsonPrimitive;
 import io.github.cottonmc.resources.CottonResources;
+import net.minecraft.tag.Tag;
+import net.minecraft.tag.TagContainer;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
 
 /**
  * A concise schema for json allow/deny semantics for anything that has an Identifier and can be held in a Tag
+ * 
+ * <p>Tags are kept by name and only looked up when the spec is tested, so a spec means the same thing no matter
+ * whether it was parsed before or after the tags were loaded, and it picks up new tag contents without being parsed
+ * again.
+ * 
+ * <p>Registered objects are tested against a compiled form of the spec: one bit per raw registry id, with "*", tags,
+ * and the deny list already applied. It's built the first time it's needed, and rebuilt if the registry grows past it
+ * or the tag container it was built against is replaced. If you modify allow, deny, allowTags or denyTags directly
+ * instead of through the methods here, call {@link #invalidate()} afterwards.
  */
 public abstract class TaggableSpec<T> implements Predicate<T> {
 	public static final Identifier ANY = new Identifier("any");
 	
 	public final Set<Identifier> allow = new HashSet<>();
 	public final Set<Identifier> deny = new HashSet<>();
+	public final Set<Identifier> allowTags = new HashSet<>();
+	public final Set<Identifier> denyTags = new HashSet<>();
+	
+	private volatile Compiled compiled = null;
 	
 	public TaggableSpec<T> allow(Identifier id) {
 		allow.add(id);
+		invalidate();
 		return this;
 	}
 	
 	public TaggableSpec<T> allow(String id) {
-		allow.add(new Identifier(id));
-		return this;
+		return allow(new Identifier(id));
 	}
 	
 	public TaggableSpec<T> deny(Identifier id) {
 		deny.add(id);
+		invalidate();
 		return this;
 	}
 	
 	public TaggableSpec<T> deny(String id) {
-		deny.add(new Identifier(id));
+		return deny(new Identifier(id));
+	}
+	
+	public TaggableSpec<T> allowTag(Identifier tag) {
+		allowTags.add(tag);
+		invalidate();
+		return this;
+	}
+	
+	public TaggableSpec<T> denyTag(Identifier tag) {
+		denyTags.add(tag);
+		invalidate();
 		return this;
 	}
 	
+	/** Throws away the compiled form of this spec, so that it gets rebuilt on the next test */
+	public void invalidate() {
+		compiled = null;
+	}
+	
+	/**
+	 * The shared allow/deny logic, given an object, its id, and the tags to look its tags up in.
+	 * A null id (an unregistered object) always passes the id deny filter, passes "*", and fails any other id allow filter.
+	 */
+	protected <U> boolean test(U value, Identifier id, TagContainer<U> tags) {
+		if (deny.contains(id) || anyTagContains(denyTags, tags, value)) return false;
+		if ((allow.isEmpty() && allowTags.isEmpty()) || allow.contains(ANY)) return true;
+		return allow.contains(id) || anyTagContains(allowTags, tags, value);
+	}
+	
+	private static <U> boolean anyTagContains(Set<Identifier> tagNames, TagContainer<U> tags, U value) {
+		for(Identifier tagName : tagNames) {
+			Tag<U> tag = tags.get(tagName);
+			if (tag!=null && tag.contains(value)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Tests a registered object using the compiled form of this spec. Objects the registry doesn't know about are
+	 * tested the slow way.
+	 */
+	protected <U> boolean testCompiled(Registry<U> registry, TagContainer<U> tags, U value) {
+		int rawId = registry.getRawId(value);
+		if (rawId<0) return test(value, registry.getId(value), tags);
+		
+		Compiled c = compiled;
+		if (c==null || c.registry!=registry || c.tags!=tags || rawId>=c.limit) c = compile(registry, tags);
+		return c.bits.get(rawId);
+	}
+	
+	protected <U> Compiled compile(Registry<U> registry, TagContainer<U> tags) {
+		BitSet bits = new BitSet();
+		int limit = 0;
+		for(U value : registry) {
+			int rawId = registry.getRawId(value);
+			if (rawId<0) continue;
+			if (test(value, registry.getId(value), tags)) bits.set(rawId);
+			if (rawId>=limit) limit = rawId+1;
+		}
+		
+		Compiled result = new Compiled(registry, tags, bits, limit);
+		compiled = result;
+		return result;
+	}
+	
+	protected static class Compiled {
+		private final Registry<?> registry;
+		private final TagContainer<?> tags;
+		private final BitSet bits;
+		/** One past the highest raw id this was compiled with; anything at or past this has to be compiled in */
+		private final int limit;
+		
+		private Compiled(Registry<?> registry, TagContainer<?> tags, BitSet bits, int limit) {
+			this.registry = registry;
+			this.tags = tags;
+			this.bits = bits;
+			this.limit = limit;
+		}
+	}
+	
 	/* TaggableSpec Schema
 	 * 
 	 * %IDENTIFIER_STRING => JsonString e.g. "minecraft:the_end" or just "the_end"
@@ -54,42 +146,49 @@ public abstract class TaggableSpec<T> implements Predicate<T> {
 	 * %SPEC => %ITEM | %NOT | %SET
 	 */
 	
-	public static <U extends TaggableSpec<?>> U deserialize(U result, JsonElement elem, Function<Identifier, Set<Identifier>> tagResolver) {
+	public static <U extends TaggableSpec<?>> U deserialize(U result, JsonElement elem) {
 		if (elem instanceof JsonPrimitive) {
-			result.allow.addAll(parseItem(elem, tagResolver));
+			parseItem(elem, result.allow, result.allowTags);
 		} else if (elem instanceof JsonArray) {
 			//Normal list of spec lines
 			for(JsonElement e : (JsonArray)elem) {
-				result.allow.addAll(parseItem(e, tagResolver));
+				parseItem(e, result.allow, result.allowTags);
 			}
 		} else if (elem instanceof JsonObject) {
 			JsonElement not = ((JsonObject)elem).get("not");
 			if (not!=null) {
-				parseNot(not, result, tagResolver);
+				parseNot(not, result);
 			} else {
 				JsonElement tag = ((JsonObject)elem).get("tag");
-				if (tag!=null) result.allow.addAll(parseItem(elem, tagResolver));
+				if (tag!=null) parseItem(elem, result.allow, result.allowTags);
 			}
 		}
 		
+		result.invalidate();
 		return result;
 	}
 	
 	public static JsonElement serialize(TaggableSpec<?> spec) {
-		if (spec.deny.isEmpty()) {
+		if (spec.deny.isEmpty() && spec.denyTags.isEmpty()) {
 			//This can just be a JsonArray of allowed elements
 			JsonArray result = new JsonArray();
 			for(Identifier id : spec.allow) {
 				result.add(new JsonPrimitive(id.toString()));
 			}
+			for(Identifier tag : spec.allowTags) {
+				result.add(new JsonPrimitive("#"+tag.toString()));
+			}
 			return result;
-		} else if (spec.allow.isEmpty()) {
+		} else if (spec.allow.isEmpty() && spec.allowTags.isEmpty()) {
 			JsonObject result = new JsonObject();
 			JsonArray arr = new JsonArray();
 			result.put("not", arr);
 			for(Identifier id : spec.deny) {
 				arr.add(new JsonPrimitive(id.toString()));
 			}
+			for(Identifier tag : spec.denyTags) {
+				arr.add(new JsonPrimitive("#"+tag.toString()));
+			}
 			return result;
 		} else {
 			CottonResources.LOGGER.error("Failed to serialize a complex TaggableSpec!");
@@ -98,34 +197,36 @@ public abstract class TaggableSpec<T> implements Predicate<T> {
 		
 	}
 	
-	public static <U extends TaggableSpec<?>> void parseNot(JsonElement not, U spec, Function<Identifier, Set<Identifier>> tagResolver) {
+	public static <U extends TaggableSpec<?>> void parseNot(JsonElement not, U spec) {
 		if (not instanceof JsonPrimitive || not instanceof JsonObject) {
-			spec.deny.addAll(parseItem(not, tagResolver));
+			parseItem(not, spec.deny, spec.denyTags);
 		} else if (not instanceof JsonArray) {
 			for(JsonElement elem : (JsonArray)not) {
-				spec.deny.addAll(parseItem(elem, tagResolver));
+				parseItem(elem, spec.deny, spec.denyTags);
 			}
 			
 		}
+		spec.invalidate();
 	}
 	
-	public static Set<Identifier> parseItem(JsonElement line, Function<Identifier, Set<Identifier>> tagResolver) {
+	/** Parses one spec line, adding it to ids if it names an object or to tags if it names a tag */
+	public static void parseItem(JsonElement line, Set<Identifier> ids, Set<Identifier> tags) {
 		if (line instanceof JsonPrimitive) {
 			String s = ((JsonPrimitive) line).asString();
 			if (s.startsWith("#")) {
-				return tagResolver.apply(new Identifier(s.substring(1)));
+				tags.add(new Identifier(s.substring(1)));
 			} else {
-				if (s.equals("*")) return ImmutableSet.of(ANY);
-				return ImmutableSet.of(new Identifier(s));
+				if (s.equals("*")) {
+					ids.add(ANY);
+				} else {
+					ids.add(new Identifier(s));
+				}
 			}
 		} else if (line instanceof JsonObject) {
 			JsonElement tag = ((JsonObject)line).get("tag");
 			if (tag!=null && tag instanceof JsonPrimitive) {
-				Identifier tagId = new Identifier(((JsonPrimitive)tag).asString());
-				return tagResolver.apply(tagId);
+				tags.add(new Identifier(((JsonPrimitive)tag).asString()));
 			}
 		}
-		
-		return ImmutableSet.of();
 	}
 }
@@ -0,0 +1,104 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+
+import io.github.cottonmc.resources.CottonResources;
+import io.github.cottonmc.resources.config.CottonResourcesConfig;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+
+/**
+ * Built-in generators that stand in for vanilla's ore features when override_vanilla_generation is on, so every ore
+ * in a chunk comes out of one cotton:ore pass instead of vanilla's separate configured features.
+ * 
+ * <p>Which biomes get which ores is taken from vanilla itself: MixinVanillaOregen records each biome that asks
+ * DefaultBiomeFeatures for default ores, badlands gold or emeralds (modded biomes included) before cancelling the
+ * request. The generators are added to the config before any datapacks, so a datapack or the config file can replace
+ * one by using the same name, or turn it off with disabledResources.
+ */
+public class VanillaOres {
+	public static final String COAL = "vanilla_coal";
+	public static final String IRON = "vanilla_iron";
+	public static final String GOLD = "vanilla_gold";
+	public static final String BADLANDS_GOLD = "vanilla_badlands_gold";
+	public static final String REDSTONE = "vanilla_redstone";
+	public static final String DIAMOND = "vanilla_diamond";
+	public static final String LAPIS = "vanilla_lapis";
+	public static final String EMERALD = "vanilla_emerald";
+	
+	/** Biomes are constructed before they're registered, so they're remembered by identity and resolved to ids later */
+	private static final Set<Biome> DEFAULT_ORE_BIOMES = Collections.synchronizedSet(Sets.newIdentityHashSet());
+	private static final Set<Biome> EXTRA_GOLD_BIOMES = Collections.synchronizedSet(Sets.newIdentityHashSet());
+	private static final Set<Biome> EMERALD_BIOMES = Collections.synchronizedSet(Sets.newIdentityHashSet());
+	
+	public static void addDefaultOres(Biome biome) {
+		DEFAULT_ORE_BIOMES.add(biome);
+	}
+	
+	public static void addExtraGoldOre(Biome biome) {
+		EXTRA_GOLD_BIOMES.add(biome);
+	}
+	
+	public static void addEmeraldOre(Biome biome) {
+		EMERALD_BIOMES.add(biome);
+	}
+	
+	/** Adds and enables the built-in generators, if the mod config says vanilla oregen is being overridden */
+	public static void addTo(OreVoteConfig config, CottonResourcesConfig settings) {
+		if (!settings.override_vanilla_generation) return;
+		
+		//Sizes, counts and heights are vanilla 1.14's. Heights are [min, max).
+		BiomeSpec defaults = toSpec(DEFAULT_ORE_BIOMES);
+		add(config, COAL, Blocks.COAL_ORE, defaults, 0, 128, 20, 17);
+		add(config, IRON, Blocks.IRON_ORE, defaults, 0, 64, 20, 9);
+		add(config, GOLD, Blocks.GOLD_ORE, defaults, 0, 32, 2, 9);
+		add(config, REDSTONE, Blocks.REDSTONE_ORE, defaults, 0, 16, 8, 8);
+		add(config, DIAMOND, Blocks.DIAMOND_ORE, defaults, 0, 16, 1, 8);
+		//Vanilla adds two nextInt(16)s for lapis, which peaks at y=15 and falls off linearly to y=0 and y=30
+		add(config, LAPIS, Blocks.LAPIS_ORE, defaults, 0, 31, 1, 7)
+				.withHeightDistribution(HeightDistribution.triangular(15));
+		
+		add(config, BADLANDS_GOLD, Blocks.GOLD_ORE, toSpec(EXTRA_GOLD_BIOMES), 32, 80, 20, 9);
+		//Vanilla places 3-8 single emeralds per chunk, and only into plain stone
+		add(config, EMERALD, Blocks.EMERALD_ORE, toSpec(EMERALD_BIOMES), 4, 32, 3, 1)
+				.withMaxClusterCount(8);
+		HashMap<String, String> emeraldHosts = new HashMap<>();
+		emeraldHosts.put("minecraft:stone", "minecraft:emerald_ore");
+		config.replacements.put(EMERALD, emeraldHosts);
+	}
+	
+	private static OreGenerationSettings add(OreVoteConfig config, String name, Block ore, BiomeSpec biomes, int minHeight, int maxHeight, int clusterCount, int clusterSize) {
+		OreGenerationSettings settings = new OreGenerationSettings()
+				.withMinHeight(minHeight)
+				.withMaxHeight(maxHeight)
+				.withClusterCount(clusterCount)
+				.withClusterSize(clusterSize);
+		settings.ores.add(ore.getDefaultState());
+		settings.biomes = biomes;
+		
+		config.generators.put(name, settings);
+		config.ores.add(name);
+		return settings;
+	}
+
+	
+	private static BiomeSpec toSpec(Set<Biome> biomes) {
+		BiomeSpec result = new BiomeSpec();
+		synchronized(biomes) {
+			for(Biome biome : biomes) {
+				Identifier id = Registry.BIOME.getId(biome);
+				if (id!=null) result.allow(id);
+			}
+		}
+		//An empty spec allows everything, so make sure one with no biomes allows nothing
+		if (result.allow.isEmpty()) result.allow(new Identifier(CottonResources.MODID, "none"));
+		return result;
+	}
+}
@@ -0,0 +1,264 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.ArrayList;
+
+import blue.endless.jankson.JsonArray;
+import blue.endless.jankson.JsonElement;
+import blue.endless.jankson.JsonObject;
+import blue.endless.jankson.JsonPrimitive;
+import io.github.cottonmc.resources.CottonResources;
+
+/**
+ * The shape a generator's clusters take, as written in the oregen json. Like HeightDistribution this is just the parsed
+ * spec; {@link #compile(int)} turns it into Clumps when the snapshot is built.
+ *
+ * <pre>
+ * "vein_shape": "sphere"                                          (the default)
+ * "vein_shape": "ellipsoid"                                       (twice as long as it is wide)
+ * "vein_shape": { "type": "ellipsoid", "stretch": [ 3, 1, 2 ] }
+ * "vein_shape": { "type": "disc", "thickness": 1 }                (a flat sill)
+ * "vein_shape": { "type": "streak", "thickness": 3 }              (a long thin dike)
+ * "vein_shape": { "type": "shell", "thickness": 1 }               (a hollow sphere)
+ * "vein_shape": { "type": "disc", "level": true }                 (never tilted)
+ * </pre>
+ *
+ * <p>Shapes are scaled up until every orientation holds at least cluster_size offsets, so cluster_size still means
+ * "this many ores" whatever the shape. Everything but spheres and shells comes in several orientations, drawn from
+ * {@link #ORIENTATIONS}; each cluster picks one at random. No shape reaches further than {@link #MAX_REACH} blocks from
+ * its center, so like vanilla features, a cluster only ever spills into the chunks right next to its own.
+ */
+public class VeinShape {
+	public static final VeinShape SPHERE = new VeinShape(Type.SPHERE);
+
+	/**
+	 * The furthest any offset may be from a cluster's center, along each axis. Centers are inside the chunk, so this
+	 * keeps spills to adjacent chunks, which are the only ones guaranteed not to be past their features yet.
+	 */
+	public static final int MAX_REACH = 16;
+	/** The largest a shape is allowed to grow, in blocks from its center, before it gives up on fitting cluster_size */
+	public static final int MAX_SCALE = MAX_REACH;
+
+	/**
+	 * Rotation matrices (row-major 3x3) for every orientation a shape can take: yaw in 45 degree steps, times pitch in
+	 * 45 degree steps. The first LEVEL_ORIENTATIONS of them have no pitch. Orientations which turn out to give the same
+	 * offsets for a particular shape are dropped when it's compiled.
+	 */
+	private static final double[][] ORIENTATIONS;
+	private static final int LEVEL_ORIENTATIONS = 4;
+	static {
+		ArrayList<double[]> orientations = new ArrayList<>();
+		for(int pitch=0; pitch<4; pitch++) {
+			for(int yaw=0; yaw<4; yaw++) {
+				orientations.add(rotation(Math.toRadians(yaw*45), Math.toRadians(pitch*45)));
+			}
+		}
+		ORIENTATIONS = orientations.toArray(new double[orientations.size()][]);
+	}
+
+	public enum Type {
+		SPHERE,
+		ELLIPSOID,
+		DISC,
+		STREAK,
+		SHELL;
+	}
+
+	public final Type type;
+	/** Ellipsoid radii along x, y and z, relative to each other */
+	public double[] stretch = { 2, 1, 1 };
+	/** Disc and shell thickness, or streak width, in blocks; NaN for the type's default */
+	public double thickness = Double.NaN;
+	/** If true, shapes are only ever turned around the y axis, never tilted */
+	public boolean level = false;
+
+	public VeinShape(Type type) {
+		this.type = type;
+	}
+
+	/**
+	 * Builds every distinct orientation of this shape, scaled so each one holds at least clusterSize offsets. Spheres
+	 * come out of {@link CottonOreFeature#SPHERES} exactly as they always have.
+	 */
+	public Clump[] compile(int clusterSize) {
+		if (type==Type.SPHERE) {
+			int radius = (int) Math.log(clusterSize) + 1;
+			for(int j=0; j<CottonOreFeature.SPHERES.length; j++) { //find the smallest clump in our vocabulary which expresses the number of ores
+				if (CottonOreFeature.SPHERES[j].size()>=clusterSize) {
+					radius = j+1;
+					break;
+				}
+			}
+			return new Clump[] { (radius-1<CottonOreFeature.SPHERES.length) ? CottonOreFeature.SPHERES[radius-1] : Clump.of(Math.min(radius, MAX_REACH)) };
+		}
+
+		int orientations = (type==Type.SHELL) ? 1 : (level) ? LEVEL_ORIENTATIONS : ORIENTATIONS.length;
+
+		//Each orientation is sized on its own, since turning a shape can gain or lose a few offsets to rounding
+		ArrayList<Clump> result = new ArrayList<>();
+		boolean tooSmall = false;
+		boolean clipped = false;
+		for(int i=0; i<orientations; i++) {
+			double scale = 1;
+			Clump clump = build(scale, ORIENTATIONS[i]);
+			while(clump.size()<clusterSize && scale<MAX_SCALE) {
+				scale += 0.5;
+				clump = build(scale, ORIENTATIONS[i]);
+			}
+			if (clump.size()<clusterSize) tooSmall = true;
+			for(int reach : getReach(scale, ORIENTATIONS[i])) if (reach>MAX_REACH) clipped = true;
+
+			boolean duplicate = false;
+			for(Clump existing : result) if (existing.sameShape(clump)) duplicate = true;
+			if (!duplicate) result.add(clump);
+		}
+		if (clipped) {
+			CottonResources.LOGGER.warn("A {} vein of {} ores reaches more than {} blocks from its center; it's been cut off there", type.name().toLowerCase(), clusterSize, MAX_REACH);
+		}
+		if (tooSmall) {
+			CottonResources.LOGGER.warn("A {} vein can't fit {} ores; clusters will be smaller than asked for", type.name().toLowerCase(), clusterSize);
+		}
+		return result.toArray(new Clump[result.size()]);
+	}
+
+	private Clump build(double scale, double[] r) {
+		//Only scan the box the turned shape fits in; for discs and streaks that's a small part of the whole cube. Anything
+		//outside MAX_REACH is cut off.
+		int[] reach = getReach(scale, r);
+		
+		return Clump.of(Math.min(reach[0], MAX_REACH), Math.min(reach[1], MAX_REACH), Math.min(reach[2], MAX_REACH), (x, y, z)->{
+			//Rotate the offset back into the shape's own frame, where the shape is axis-aligned
+			double qx = r[0]*x + r[3]*y + r[6]*z;
+			double qy = r[1]*x + r[4]*y + r[7]*z;
+			double qz = r[2]*x + r[5]*y + r[8]*z;
+			return distance(qx, qy, qz, scale);
+		});
+	}
+
+	/** How far this shape reaches along the world's x, y and z axes at this scale and orientation, before any clipping */
+	private int[] getReach(double scale, double[] r) {
+		double[] extent = getExtent(scale);
+		return new int[] {
+				(int)Math.ceil(Math.abs(r[0])*extent[0] + Math.abs(r[1])*extent[1] + Math.abs(r[2])*extent[2]),
+				(int)Math.ceil(Math.abs(r[3])*extent[0] + Math.abs(r[4])*extent[1] + Math.abs(r[5])*extent[2]),
+				(int)Math.ceil(Math.abs(r[6])*extent[0] + Math.abs(r[7])*extent[1] + Math.abs(r[8])*extent[2])
+		};
+	}
+	
+	/** How far this shape reaches along each of its own axes at this scale */
+	private double[] getExtent(double scale) {
+		switch(type) {
+			case ELLIPSOID: {
+				double max = Math.max(stretch[0], Math.max(stretch[1], stretch[2]));
+				return new double[] { scale*stretch[0]/max, scale*stretch[1]/max, scale*stretch[2]/max };
+			}
+			case DISC:
+				return new double[] { scale, getThickness(1) / 2, scale };
+			case STREAK:
+				return new double[] { scale, getThickness(1.5) / 2, getThickness(1.5) / 2 };
+			case SHELL:
+			case SPHERE:
+			default:
+				return new double[] { scale, scale, scale };
+		}
+	}
+
+	/** The metric for this shape at this scale, in the shape's own frame */
+	private double distance(double x, double y, double z, double scale) {
+		switch(type) {
+			case ELLIPSOID: {
+				double max = Math.max(stretch[0], Math.max(stretch[1], stretch[2]));
+				double rx = scale*stretch[0]/max;
+				double ry = scale*stretch[1]/max;
+				double rz = scale*stretch[2]/max;
+				return Math.sqrt((x*x)/(rx*rx) + (y*y)/(ry*ry) + (z*z)/(rz*rz));
+			}
+			case DISC: {
+				//Lies in the xz plane
+				double halfThickness = getThickness(1) / 2;
+				return Math.max(Math.sqrt(x*x + z*z) / scale, Math.abs(y) / halfThickness);
+			}
+			case STREAK: {
+				//Runs along the x axis
+				double halfWidth = getThickness(1.5) / 2;
+				return Math.max(Math.abs(x) / scale, Math.sqrt(y*y + z*z) / halfWidth);
+			}
+			case SHELL: {
+				//Closest to 0 in the middle of the wall
+				double halfThickness = Math.min(getThickness(1), scale) / 2;
+				return Math.abs(Math.sqrt(x*x + y*y + z*z) - (scale-halfThickness)) / halfThickness;
+			}
+			case SPHERE:
+			default:
+				return Math.sqrt(x*x + y*y + z*z) / scale;
+		}
+	}
+
+	private double getThickness(double defaultThickness) {
+		return (Double.isNaN(thickness) || thickness<=0) ? defaultThickness : thickness;
+	}
+
+	/** Yaw around y, then pitch around the rotated z, so a shape's x axis points where the orientation says */
+	private static double[] rotation(double yaw, double pitch) {
+		double cy = Math.cos(yaw), sy = Math.sin(yaw);
+		double cp = Math.cos(pitch), sp = Math.sin(pitch);
+		return new double[] {
+				cy*cp, -cy*sp, sy,
+				sp,    cp,     0,
+				-sy*cp, sy*sp, cy
+		};
+	}
+
+	public static VeinShape deserialize(JsonElement elem) {
+		if (elem instanceof JsonPrimitive) {
+			Type type = parseType(((JsonPrimitive) elem).asString());
+			return (type==null || type==Type.SPHERE) ? SPHERE : new VeinShape(type);
+		} else if (elem instanceof JsonObject) {
+			JsonObject obj = (JsonObject) elem;
+			Type type = parseType(obj.get(String.class, "type"));
+			if (type==null || type==Type.SPHERE) return SPHERE;
+
+			VeinShape result = new VeinShape(type);
+			Double thickness = obj.get(Double.class, "thickness");
+			if (thickness!=null) result.thickness = thickness;
+			Boolean level = obj.get(Boolean.class, "level");
+			if (level!=null) result.level = level;
+
+			JsonElement stretch = obj.get("stretch");
+			if (stretch instanceof JsonArray && ((JsonArray) stretch).size()==3) {
+				int i = 0;
+				for(JsonElement e : (JsonArray) stretch) {
+					Object val = (e instanceof JsonPrimitive) ? ((JsonPrimitive) e).getValue() : null;
+					result.stretch[i++] = (val instanceof Number && ((Number) val).doubleValue()>0) ? ((Number) val).doubleValue() : 1;
+				}
+			}
+			return result;
+		} else {
+			return SPHERE;
+		}
+	}
+
+	public static JsonElement serialize(VeinShape shape) {
+		String type = shape.type.name().toLowerCase();
+		if (shape.type==Type.SPHERE) return new JsonPrimitive(type);
+
+		JsonObject result = new JsonObject();
+		result.put("type", new JsonPrimitive(type));
+		if (shape.type==Type.ELLIPSOID) {
+			JsonArray stretch = new JsonArray();
+			for(double d : shape.stretch) stretch.add(new JsonPrimitive(d));
+			result.put("stretch", stretch);
+		}
+		if (!Double.isNaN(shape.thickness)) result.put("thickness", new JsonPrimitive(shape.thickness));
+		if (shape.level) result.put("level", new JsonPrimitive(true));
+		return result;
+	}
+
+	private static Type parseType(String name) {
+		if (name==null) return null;
+		for(Type type : Type.values()) {
+			if (type.name().equalsIgnoreCase(name)) return type;
+		}
+		CottonResources.LOGGER.warn("Unknown vein_shape '{}', using sphere", name);
+		return null;
+	}
+}
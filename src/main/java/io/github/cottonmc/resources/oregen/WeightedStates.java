@@ -0,0 +1,61 @@
+package io.github.cottonmc.resources.oregen;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+/**
+ * A resource's ore states and how likely each one is to be picked, compiled from its ore_block list. Equal weights
+ * keep the plain nextInt pick; anything else goes through an {@link AliasTable}.
+ */
+public final class WeightedStates {
+	private final BlockState[] states;
+	/** Null if every state is equally likely */
+	private final AliasTable table;
+	
+	private WeightedStates(BlockState[] states, AliasTable table) {
+		this.states = states;
+		this.table = table;
+	}
+	
+	public int size() {
+		return states.length;
+	}
+	
+	public boolean isEmpty() {
+		return states.length==0;
+	}
+	
+	public BlockState get(int index) {
+		return states[index];
+	}
+	
+	public BlockState pick(Random rand) {
+		if (states.length==1) return states[0];
+		if (table==null) return states[rand.nextInt(states.length)];
+		return states[table.sample(rand)];
+	}
+	
+	/**
+	 * Compiles a set of states and their weights. States without a weight get a weight of 1. States are sorted by raw
+	 * id, so which one a given seed picks doesn't depend on set order.
+	 */
+	public static WeightedStates of(Set<BlockState> ores, Map<BlockState, Float> weights) {
+		BlockState[] states = ores.toArray(new BlockState[ores.size()]);
+		Arrays.sort(states, Comparator.comparingInt(Block::getRawIdFromState));
+		
+		double[] w = new double[states.length];
+		boolean uniform = true;
+		for(int i=0; i<states.length; i++) {
+			w[i] = weights.getOrDefault(states[i], 1f);
+			if (w[i]!=w[0]) uniform = false;
+		}
+		
+		return new WeightedStates(states, (uniform || states.length<2) ? null : AliasTable.of(w));
+	}
+}
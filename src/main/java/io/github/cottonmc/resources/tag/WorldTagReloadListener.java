@@ -1,40 +1,58 @@
 package io.github.cottonmc.resources.tag;
 
-import java.util.Map;
-
-import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import io.github.cottonmc.resources.CottonResources;
-import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
 import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceReloadListener;
 import net.minecraft.tag.RegistryTagContainer;
-import net.minecraft.tag.Tag;
 import net.minecraft.tag.TagContainer;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.profiler.Profiler;
 import net.minecraft.util.registry.Registry;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.dimension.DimensionType;
 
-public class WorldTagReloadListener implements SimpleSynchronousResourceReloadListener {
+/**
+ * Reloads biome and dimension tags. Both containers are read and built side by side on the reload's background
+ * executor; nothing can see them until the apply phase, which only swaps them in.
+ */
+public class WorldTagReloadListener implements IdentifiableResourceReloadListener {
 	public static final Identifier ID = new Identifier(CottonResources.MODID, "world_tags");
 	
-	//implements SynchronousResourceReloadListener {
+	//implements ResourceReloadListener {
 		@Override
-		public void apply(ResourceManager resourceManager) {
-			BiomeTags.setContainer(reload(resourceManager, Registry.BIOME, "tags/biomes", "biome"));
+		public CompletableFuture<Void> reload(ResourceReloadListener.Synchronizer synchronizer, ResourceManager resourceManager, Profiler prepareProfiler, Profiler applyProfiler, Executor prepareExecutor, Executor applyExecutor) {
+			CompletableFuture<TagContainer<Biome>> biomes = prepare(resourceManager, prepareExecutor, Registry.BIOME, "tags/biomes", "biome");
+			CompletableFuture<TagContainer<DimensionType>> dimensions = prepare(resourceManager, prepareExecutor, Registry.DIMENSION, "tags/dimensions", "dimension");
 			
-			DimensionTypeTags.setContainer(reload(resourceManager, Registry.DIMENSION, "tags/dimensions", "dimension"));
+			return CompletableFuture.allOf(biomes, dimensions)
+					.thenCompose(synchronizer::whenPrepared)
+					.thenAcceptAsync((it)->{
+						BiomeTags.setContainer(biomes.join());
+						DimensionTypeTags.setContainer(dimensions.join());
+					}, applyExecutor);
 		}
 	//}
 	
-	private static <T> TagContainer<T> reload(ResourceManager resourceManager, Registry<T> registry, String folder, String name) {
+	/**
+	 * Reads and builds one tag container on the background executor. If anything goes wrong, the result is an empty
+	 * container rather than a failed reload, same as before.
+	 */
+	private static <T> CompletableFuture<TagContainer<T>> prepare(ResourceManager resourceManager, Executor executor, Registry<T> registry, String folder, String name) {
 		RegistryTagContainer<T> container = new RegistryTagContainer<>(registry, folder, name);
-		try {
-			Map<Identifier, Tag.Builder<T>> map = container.prepareReload(resourceManager, MoreExecutors.directExecutor()).get(); //waits synchronously for prepareReload to complete
-			container.applyReload(map);
-		} catch (Throwable t) {
-			t.printStackTrace();
-		}
-		
-		return container;
+		return container.prepareReload(resourceManager, executor)
+				.thenApplyAsync((map)->{
+					//The container isn't published yet, so it's safe to fill it in off-thread
+					container.applyReload(map);
+					return (TagContainer<T>)container;
+				}, executor)
+				.exceptionally((t)->{
+					CottonResources.LOGGER.error("Couldn't load "+name+" tags", t);
+					return container;
+				});
 	}
 	
 	//implements IdentifiableResourceReloadListener {